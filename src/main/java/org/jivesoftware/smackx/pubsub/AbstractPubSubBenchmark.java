@@ -0,0 +1,152 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+
+import org.igniterealtime.smack.inttest.AbstractSmackIntegrationTest;
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.jxmpp.jid.DomainBareJid;
+
+/**
+ * Base class for PubSub load and performance tests.
+ *
+ * <p>Benchmarks re-use the setup of {@link PubSubIntegrationTest}, but are opt-in: unless the benchmark is enabled
+ * through {@link PubSubBenchmarkConfiguration#isEnabled(String)}, its constructor throws a
+ * {@link TestNotPossibleException}, causing the framework to skip it.</p>
+ */
+public abstract class AbstractPubSubBenchmark extends AbstractSmackIntegrationTest {
+
+    protected final String benchmarkName;
+
+    protected final SmackIntegrationTestEnvironment environment;
+
+    protected final DomainBareJid pubSubService;
+
+    protected final PubSubServiceCapabilities capabilities;
+
+    protected final PubSubManager pubSubManagerOne;
+
+    protected AbstractPubSubBenchmark(SmackIntegrationTestEnvironment environment, String benchmarkName)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment);
+        if (!PubSubBenchmarkConfiguration.isEnabled(benchmarkName)) {
+            throw new TestNotPossibleException("Benchmark '" + benchmarkName + "' is not enabled (add it to '" + PubSubBenchmarkConfiguration.ENABLED_BENCHMARKS_PROPERTY + "').");
+        }
+        this.benchmarkName = benchmarkName;
+        this.environment = environment;
+        IqMetrics.instrumentIfEnabled(testRunId, conOne, conTwo, conThree);
+        capabilities = PubSubServiceCapabilities.getInstanceFor(conOne, testRunId);
+        pubSubService = capabilities.requireNodeCreation(getClass().getSimpleName());
+        pubSubManagerOne = PubSubManager.getInstanceFor(conOne, pubSubService);
+        PubSubNodeFixture.deleteLeftoverNodes(pubSubManagerOne, testRunId);
+    }
+
+    /**
+     * Returns the PubSub manager for the service under test, for the provided connection.
+     *
+     * @param connection the connection for which to return a manager.
+     * @return a PubSub manager.
+     */
+    protected PubSubManager getPubSubManager(XMPPConnection connection) {
+        return PubSubManager.getInstanceFor(connection, pubSubService);
+    }
+
+    /**
+     * Returns authenticated connections, each for a distinct account, from the run-wide {@link PubSubConnectionPool}.
+     *
+     * @param count the number of connections that is needed.
+     * @return exactly <code>count</code> connections.
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation while connecting.
+     * @throws IOException if an I/O error occurred while connecting.
+     * @throws XMPPException if an XMPP protocol error was received while connecting.
+     */
+    protected List<XMPPConnection> getConnections(int count) throws InterruptedException, SmackException, IOException, XMPPException {
+        return PubSubConnectionPool.getInstanceFor(environment).getConnections(count);
+    }
+
+    /**
+     * Returns a node name that is unique for this benchmark and test run.
+     *
+     * @param suffix a suffix that makes the node name unique within the benchmark.
+     * @return a node name.
+     */
+    protected String nodename(String suffix) {
+        return "sinttest-" + benchmarkName + '-' + suffix + '-' + testRunId;
+    }
+
+    /**
+     * Creates a new, empty report for this benchmark.
+     *
+     * @return a report.
+     */
+    protected BenchmarkReport newReport() {
+        return new BenchmarkReport(benchmarkName, testRunId);
+    }
+
+    /**
+     * Returns an integer setting of this benchmark.
+     *
+     * @param setting the name of the setting.
+     * @param defaultValue the value to use when the setting is not configured.
+     * @return the configured value, or the default value.
+     */
+    protected int getIntSetting(String setting, int defaultValue) {
+        return PubSubBenchmarkConfiguration.getInt(benchmarkName, setting, defaultValue);
+    }
+
+    /**
+     * Returns a numeric setting of this benchmark.
+     *
+     * @param setting the name of the setting.
+     * @param defaultValue the value to use when the setting is not configured.
+     * @return the configured value, or the default value.
+     */
+    protected double getDoubleSetting(String setting, double defaultValue) {
+        return PubSubBenchmarkConfiguration.getDouble(benchmarkName, setting, defaultValue);
+    }
+
+    /**
+     * Asserts that a measured value meets its service level objective. Objectives that are not configured (zero or
+     * less) are not checked.
+     *
+     * @param description a human readable description of the measured value.
+     * @param measured the measured value.
+     * @param objective the objective.
+     * @param isMinimum true if the objective is a lower bound, false if it is an upper bound.
+     */
+    protected static void assertSlo(String description, double measured, double objective, boolean isMinimum) {
+        if (objective <= 0) {
+            return;
+        }
+        final boolean met = isMinimum ? measured >= objective : measured <= objective;
+        assertTrue(met, "Service level objective missed for " + description + ": measured " + measured + ", objective " + (isMinimum ? ">= " : "<= ") + objective);
+    }
+}
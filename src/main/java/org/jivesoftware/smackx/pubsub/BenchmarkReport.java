@@ -0,0 +1,143 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The outcome of a benchmark run: an ordered collection of named values.
+ *
+ * <p>A report is always logged. When <code>sinttest.pubsub.reportDir</code> is set, it is also written to a file in
+ * that directory, one <code>key=value</code> pair per line, so that it can be archived by CI.</p>
+ */
+public final class BenchmarkReport {
+
+    private static final Logger LOGGER = Logger.getLogger(BenchmarkReport.class.getName());
+
+    private final String name;
+
+    private final String testRunId;
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    /**
+     * Creates a new, empty report.
+     *
+     * @param name the name of the benchmark.
+     * @param testRunId the identifier of the test run that produced this report.
+     */
+    public BenchmarkReport(String name, String testRunId) {
+        this.name = name;
+        this.testRunId = testRunId;
+    }
+
+    /**
+     * Adds a value to the report.
+     *
+     * @param key the name of the value.
+     * @param value the value.
+     * @return this report.
+     */
+    public synchronized BenchmarkReport put(String key, Object value) {
+        values.put(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds a whole number to the report. Without this method, counts would be widened to <code>double</code> and
+     * reported with decimals.
+     *
+     * @param key the name of the value.
+     * @param value the value.
+     * @return this report.
+     */
+    public synchronized BenchmarkReport put(String key, long value) {
+        values.put(key, Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Adds a number to the report, rounded to three decimals.
+     *
+     * @param key the name of the value.
+     * @param value the value.
+     * @return this report.
+     */
+    public synchronized BenchmarkReport put(String key, double value) {
+        values.put(key, String.format(Locale.ROOT, "%.3f", value));
+        return this;
+    }
+
+    /**
+     * Adds the count, mean and the p50, p99, p99.9 and maximum values of a histogram to the report, in milliseconds.
+     *
+     * @param prefix the prefix used for the names of all values.
+     * @param histogram the histogram to add.
+     * @return this report.
+     */
+    public synchronized BenchmarkReport put(String prefix, LatencyHistogram histogram) {
+        put(prefix + ".count", histogram.getCount());
+        put(prefix + ".meanMillis", histogram.getMeanNanos() / 1_000_000d);
+        put(prefix + ".p50Millis", histogram.getMillisAtPercentile(50));
+        put(prefix + ".p99Millis", histogram.getMillisAtPercentile(99));
+        put(prefix + ".p999Millis", histogram.getMillisAtPercentile(99.9));
+        put(prefix + ".maxMillis", histogram.getMaxNanos() / 1_000_000d);
+        return this;
+    }
+
+    /**
+     * Logs the report and, if configured, writes it to the report directory.
+     */
+    public synchronized void publish() {
+        LOGGER.info(toString());
+
+        final String directory = PubSubBenchmarkConfiguration.getReportDirectory();
+        if (directory == null) {
+            return;
+        }
+        final Path file = Paths.get(directory, name + '-' + testRunId + ".properties");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    writer.write(entry.getKey() + '=' + entry.getValue() + System.lineSeparator());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to write benchmark report to " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("Benchmark '").append(name).append("' (").append(testRunId).append("):");
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            sb.append(System.lineSeparator()).append("  ").append(entry.getKey()).append(" = ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
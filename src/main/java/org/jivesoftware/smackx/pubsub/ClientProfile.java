@@ -0,0 +1,239 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The resources that the client side of a test consumed: CPU time, allocated heap memory and garbage collections.
+ *
+ * <p>A profile separates the cost of the client (Smack parsing and serializing stanzas, and the test itself) from the
+ * time spent waiting for the server. CPU time and allocations are summed over all threads of the JVM, which includes
+ * the threads on which Smack reads and parses stanzas, and are also reported for the thread that executes the test.
+ * Threads that both start and end while the profile is recorded are not included. Allocated bytes are only available
+ * on JVMs that provide the <code>com.sun.management.ThreadMXBean</code> extension, and are reported as -1 otherwise.
+ * The number and duration of garbage collections are process-wide.</p>
+ *
+ * <p>As the whole JVM is measured, profiles of tests that execute concurrently include each other's cost.</p>
+ */
+public final class ClientProfile {
+
+    private final long cpuNanos;
+
+    private final long testThreadCpuNanos;
+
+    private final long allocatedBytes;
+
+    private final long gcCount;
+
+    private final long gcMillis;
+
+    private ClientProfile(long cpuNanos, long testThreadCpuNanos, long allocatedBytes, long gcCount, long gcMillis) {
+        this.cpuNanos = cpuNanos;
+        this.testThreadCpuNanos = testThreadCpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    /**
+     * Starts recording a profile. The thread that calls this method is considered to be the thread that executes the
+     * test.
+     *
+     * @return the recording, which is to be stopped by the same thread.
+     */
+    public static Recording start() {
+        return new Recording();
+    }
+
+    /**
+     * Returns the CPU time used by all threads.
+     *
+     * @return CPU time in nanoseconds, or -1 if not supported by the JVM.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Returns the CPU time used by the thread that executed the test.
+     *
+     * @return CPU time in nanoseconds, or -1 if not supported by the JVM.
+     */
+    public long getTestThreadCpuNanos() {
+        return testThreadCpuNanos;
+    }
+
+    /**
+     * Returns the amount of heap memory allocated by all threads.
+     *
+     * @return allocated bytes, or -1 if not supported by the JVM.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Returns the accumulated duration of garbage collections, as reported by the JVM.
+     *
+     * @return the collection time in milliseconds.
+     */
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    /**
+     * Adds this profile to a report.
+     *
+     * @param report the report to add to.
+     * @param prefix the prefix used for the names of all values.
+     * @return the report.
+     */
+    public BenchmarkReport addTo(BenchmarkReport report, String prefix) {
+        return report
+            .put(prefix + ".cpuMillis", cpuNanos / 1_000_000d)
+            .put(prefix + ".testThreadCpuMillis", testThreadCpuNanos / 1_000_000d)
+            .put(prefix + ".allocatedBytes", allocatedBytes)
+            .put(prefix + ".gcCount", gcCount)
+            .put(prefix + ".gcMillis", gcMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "client CPU %.3f ms (test thread %.3f ms), allocated %d bytes, %d GCs (%d ms)",
+            cpuNanos / 1_000_000d, testThreadCpuNanos / 1_000_000d, allocatedBytes, gcCount, gcMillis);
+    }
+
+    /**
+     * A profile that is being recorded.
+     */
+    public static final class Recording {
+
+        private final Thread testThread = Thread.currentThread();
+
+        private final Map<Long, Long> cpuNanosByThread;
+
+        private final Map<Long, Long> allocatedBytesByThread;
+
+        private final long testThreadCpuNanos;
+
+        private final long gcCount;
+
+        private final long gcMillis;
+
+        private Recording() {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+                threads.setThreadCpuTimeEnabled(true);
+            }
+            cpuNanosByThread = sampleCpuNanos();
+            allocatedBytesByThread = sampleAllocatedBytes();
+            testThreadCpuNanos = getCurrentThreadCpuNanos();
+            final long[] gc = sampleGc();
+            gcCount = gc[0];
+            gcMillis = gc[1];
+        }
+
+        /**
+         * Stops recording.
+         *
+         * @return the profile.
+         */
+        public ClientProfile stop() {
+            if (Thread.currentThread() != testThread) {
+                throw new IllegalStateException("A profile must be stopped by the thread that started it.");
+            }
+            final long testThreadCpu = testThreadCpuNanos < 0 ? -1 : getCurrentThreadCpuNanos() - testThreadCpuNanos;
+            final long[] gc = sampleGc();
+            return new ClientProfile(delta(cpuNanosByThread, sampleCpuNanos()), testThreadCpu,
+                delta(allocatedBytesByThread, sampleAllocatedBytes()), gc[0] - gcCount, gc[1] - gcMillis);
+        }
+
+        /**
+         * Sums the increase of per-thread counters. Threads that did not exist at the start are counted from zero.
+         */
+        private static long delta(Map<Long, Long> start, Map<Long, Long> end) {
+            if (start == null || end == null) {
+                return -1;
+            }
+            long result = 0;
+            for (Map.Entry<Long, Long> entry : end.entrySet()) {
+                result += entry.getValue() - start.getOrDefault(entry.getKey(), 0L);
+            }
+            return result;
+        }
+
+        private static long getCurrentThreadCpuNanos() {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+        }
+
+        private static Map<Long, Long> sampleCpuNanos() {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!threads.isThreadCpuTimeSupported()) {
+                return null;
+            }
+            final Map<Long, Long> result = new HashMap<>();
+            for (long id : threads.getAllThreadIds()) {
+                final long cpu = threads.getThreadCpuTime(id);
+                if (cpu >= 0) {
+                    result.put(id, cpu);
+                }
+            }
+            return result;
+        }
+
+        private static Map<Long, Long> sampleAllocatedBytes() {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            final com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+            if (!extended.isThreadAllocatedMemorySupported() || !extended.isThreadAllocatedMemoryEnabled()) {
+                return null;
+            }
+            final long[] ids = threads.getAllThreadIds();
+            final long[] allocated = extended.getThreadAllocatedBytes(ids);
+            final Map<Long, Long> result = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] >= 0) {
+                    result.put(ids[i], allocated[i]);
+                }
+            }
+            return result;
+        }
+
+        private static long[] sampleGc() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new long[] {count, millis};
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.filter.IQTypeFilter;
+import org.jivesoftware.smack.filter.OrFilter;
+import org.jivesoftware.smack.packet.ExtensionElement;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smack.packet.Stanza;
+import org.jivesoftware.smack.packet.StanzaError;
+
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+
+/**
+ * Run-wide round-trip times of IQ requests, labelled by operation and outcome.
+ *
+ * <p>When <code>sinttest.pubsub.iqMetrics.enabled</code> is set to <code>true</code>, every connection used by the
+ * PubSub tests and benchmarks is instrumented: the moment that an IQ request of type <code>get</code> or
+ * <code>set</code> is sent is recorded on the sending thread, and the round-trip time is recorded into a
+ * {@link LatencyHistogram} when the response with the same stanza ID is received. Requests are labelled by their
+ * operation (eg: <code>pubsub/publish</code>, <code>pubsub#owner/delete</code> or <code>disco#info</code>) and
+ * responses by their outcome: <code>result</code>, or the condition of the error (eg: <code>item-not-found</code>).
+ * Requests that are not answered by the end of the run are counted per operation.</p>
+ *
+ * <p>The metrics are exported when the JVM shuts down: when <code>sinttest.pubsub.reportDir</code> is set, they are
+ * written to that directory in the Prometheus text exposition format (<code>iqMetrics-&lt;testRunId&gt;.prom</code>)
+ * and as JSON (<code>iqMetrics-&lt;testRunId&gt;.json</code>), and a summary is printed to the standard error stream.
+ * The summary is not logged, as java.util.logging resets its handlers in a shutdown hook of its own, which may run
+ * first.</p>
+ */
+public final class IqMetrics {
+
+    public static final String SETTINGS = "iqMetrics";
+
+    private static final String NAMESPACE_PREFIX = "http://jabber.org/protocol/";
+
+    /**
+     * Upper bounds of the buckets that are exported in the Prometheus format, in seconds.
+     */
+    private static final double[] BUCKET_BOUNDS_SECONDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private static final IqMetrics INSTANCE = new IqMetrics();
+
+    /**
+     * Histograms by operation, and then by outcome.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Requests that await a response, by stanza ID.
+     */
+    private final ConcurrentMap<String, PendingRequest> pending = new ConcurrentHashMap<>();
+
+    private final Set<XMPPConnection> instrumented = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private volatile String testRunId;
+
+    private boolean shutdownHookAdded;
+
+    private IqMetrics() {
+    }
+
+    /**
+     * Returns the metrics of this JVM.
+     *
+     * @return the run-wide metrics.
+     */
+    public static IqMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if IQ round-trip times are to be recorded.
+     *
+     * @return true if recording is enabled.
+     */
+    public static boolean isEnabled() {
+        return PubSubBenchmarkConfiguration.getBoolean(SETTINGS, "enabled", false);
+    }
+
+    /**
+     * Instruments connections, if recording is enabled. Connections that are already instrumented are left alone.
+     *
+     * @param testRunId the identifier of the test run, used to name the exported files.
+     * @param connections the connections to instrument.
+     */
+    public static void instrumentIfEnabled(String testRunId, XMPPConnection... connections) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (XMPPConnection connection : connections) {
+            INSTANCE.instrument(testRunId, connection);
+        }
+    }
+
+    /**
+     * Records the round-trip time of the IQ requests sent over a connection. This method is idempotent.
+     *
+     * @param testRunId the identifier of the test run, used to name the exported files.
+     * @param connection the connection to instrument.
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized void instrument(String testRunId, XMPPConnection connection) {
+        if (this.testRunId == null) {
+            this.testRunId = testRunId;
+        }
+        if (!instrumented.add(connection)) {
+            return;
+        }
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::export, "IQ metrics export"));
+            shutdownHookAdded = true;
+        }
+
+        // Interceptors are invoked on the sending thread, before the stanza is written, which is as close to the wire
+        // as Smack allows. Smack 4.4 deprecates stanza interceptors in favour of message and presence interceptors, but
+        // has no counterpart for IQs. Sending listeners are invoked asynchronously, so their timestamps would include
+        // scheduling delays, and wrapping the methods that send IQs would miss the requests that Smack's managers send
+        // on their own, such as the disco#info of PubSubManager.getNode().
+        connection.addStanzaInterceptor(stanza -> {
+            final IQ request = (IQ) stanza;
+            if (request.getStanzaId() != null) {
+                pending.put(request.getStanzaId(), new PendingRequest(getOperation(request), System.nanoTime()));
+            }
+        }, new OrFilter(IQTypeFilter.GET, IQTypeFilter.SET));
+
+        connection.addSyncStanzaListener(stanza -> {
+            final long received = System.nanoTime();
+            final PendingRequest request = stanza.getStanzaId() == null ? null : pending.remove(stanza.getStanzaId());
+            if (request != null) {
+                record(request.operation, getOutcome(stanza), received - request.sentNanos);
+            }
+        }, new OrFilter(IQTypeFilter.RESULT, IQTypeFilter.ERROR));
+    }
+
+    /**
+     * Records the round-trip time of a single request.
+     *
+     * @param operation the operation that was requested.
+     * @param outcome the outcome of the request.
+     * @param nanos the round-trip time, in nanoseconds.
+     */
+    public void record(String operation, String outcome, long nanos) {
+        histograms.computeIfAbsent(operation, o -> new ConcurrentHashMap<>())
+            .computeIfAbsent(outcome, o -> new LatencyHistogram())
+            .recordNanos(nanos);
+    }
+
+    /**
+     * Returns a label for the operation that an IQ request represents. For PubSub requests, this is the namespace
+     * followed by the name of the action element (eg: <code>pubsub/publish</code>). For other requests, this is the
+     * namespace of the child element, without the common <code>http://jabber.org/protocol/</code> prefix.
+     *
+     * @param request the request.
+     * @return the operation label.
+     */
+    static String getOperation(IQ request) {
+        String namespace = request.getChildElementNamespace();
+        if (namespace == null) {
+            return "unknown";
+        }
+        if (namespace.startsWith(NAMESPACE_PREFIX)) {
+            namespace = namespace.substring(NAMESPACE_PREFIX.length());
+        }
+        if (request instanceof PubSub) {
+            for (ExtensionElement action : request.getExtensions()) {
+                return namespace + '/' + action.getElementName();
+            }
+        }
+        return namespace;
+    }
+
+    private static String getOutcome(Stanza response) {
+        final StanzaError error = response.getError();
+        if (error == null) {
+            return "result";
+        }
+        return error.getCondition() == null ? "error" : error.getCondition().toString();
+    }
+
+    /**
+     * Returns the number of requests that have not been answered so far, by operation.
+     *
+     * @return the unanswered requests.
+     */
+    public SortedMap<String, Long> getUnanswered() {
+        final SortedMap<String, Long> result = new TreeMap<>();
+        for (PendingRequest request : pending.values()) {
+            result.merge(request.operation, 1L, Long::sum);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the recorded histograms, by operation and outcome, both in alphabetical order.
+     */
+    private SortedMap<String, SortedMap<String, LatencyHistogram>> getHistograms() {
+        final SortedMap<String, SortedMap<String, LatencyHistogram>> result = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> entry : histograms.entrySet()) {
+            result.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Renders the metrics in the Prometheus text exposition format.
+     *
+     * @return the metrics, as a round-trip time histogram per operation and outcome, and a count of unanswered
+     * requests per operation.
+     */
+    public String toPrometheus() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("# HELP sinttest_iq_round_trip_seconds Time between sending an IQ request and receiving its response.\n");
+        sb.append("# TYPE sinttest_iq_round_trip_seconds histogram\n");
+        for (Map.Entry<String, SortedMap<String, LatencyHistogram>> operation : getHistograms().entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> outcome : operation.getValue().entrySet()) {
+                final String labels = "operation=\"" + escapeLabel(operation.getKey()) + "\",outcome=\"" + escapeLabel(outcome.getKey()) + '"';
+                final LatencyHistogram histogram = outcome.getValue();
+                final long count = histogram.getCount();
+                for (double bound : BUCKET_BOUNDS_SECONDS) {
+                    sb.append("sinttest_iq_round_trip_seconds_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+                        .append(histogram.getCountAtOrBelow((long) (bound * 1_000_000_000d))).append('\n');
+                }
+                sb.append("sinttest_iq_round_trip_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+                sb.append("sinttest_iq_round_trip_seconds_sum{").append(labels).append("} ")
+                    .append(String.format(Locale.ROOT, "%.9f", histogram.getMeanNanos() * count / 1_000_000_000d)).append('\n');
+                sb.append("sinttest_iq_round_trip_seconds_count{").append(labels).append("} ").append(count).append('\n');
+            }
+        }
+        sb.append("# HELP sinttest_iq_unanswered Number of IQ requests for which no response was received.\n");
+        sb.append("# TYPE sinttest_iq_unanswered gauge\n");
+        for (Map.Entry<String, Long> entry : getUnanswered().entrySet()) {
+            sb.append("sinttest_iq_unanswered{operation=\"").append(escapeLabel(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Renders the metrics as a JSON document.
+     *
+     * @return the metrics, as an array of round-trip time summaries (in milliseconds) per operation and outcome, and an
+     * object holding the count of unanswered requests per operation.
+     */
+    public String toJson() {
+        final StringBuilder sb = new StringBuilder("{\n  \"testRunId\": ").append(quote(testRunId)).append(",\n  \"roundTrips\": [");
+        boolean first = true;
+        for (Map.Entry<String, SortedMap<String, LatencyHistogram>> operation : getHistograms().entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> outcome : operation.getValue().entrySet()) {
+                final LatencyHistogram histogram = outcome.getValue();
+                sb.append(first ? "\n" : ",\n");
+                first = false;
+                sb.append("    {\"operation\": ").append(quote(operation.getKey()))
+                    .append(", \"outcome\": ").append(quote(outcome.getKey()))
+                    .append(", \"count\": ").append(histogram.getCount())
+                    .append(String.format(Locale.ROOT,
+                        ", \"meanMillis\": %.3f, \"p50Millis\": %.3f, \"p99Millis\": %.3f, \"p999Millis\": %.3f, \"maxMillis\": %.3f}",
+                        histogram.getMeanNanos() / 1_000_000d, histogram.getMillisAtPercentile(50),
+                        histogram.getMillisAtPercentile(99), histogram.getMillisAtPercentile(99.9),
+                        histogram.getMaxNanos() / 1_000_000d));
+            }
+        }
+        sb.append(first ? "],\n" : "\n  ],\n").append("  \"unanswered\": {");
+        first = true;
+        for (Map.Entry<String, Long> entry : getUnanswered().entrySet()) {
+            sb.append(first ? "" : ", ").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            first = false;
+        }
+        return sb.append("}\n}\n").toString();
+    }
+
+    /**
+     * Writes the metrics to the report directory, if one is configured, in the Prometheus and JSON formats, and then
+     * prints a summary to the standard error stream. The files are written first, so that they are complete even if
+     * the JVM halts while the summary is printed. Nothing is exported if no request was recorded.
+     */
+    public void export() {
+        if (histograms.isEmpty() && pending.isEmpty()) {
+            return;
+        }
+        final String directory = PubSubBenchmarkConfiguration.getReportDirectory();
+        if (directory != null) {
+            write(Paths.get(directory, SETTINGS + '-' + testRunId + ".prom"), toPrometheus());
+            write(Paths.get(directory, SETTINGS + '-' + testRunId + ".json"), toJson());
+        }
+
+        final StringBuilder sb = new StringBuilder("IQ round-trip times (").append(testRunId).append("):");
+        for (Map.Entry<String, SortedMap<String, LatencyHistogram>> operation : getHistograms().entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> outcome : operation.getValue().entrySet()) {
+                sb.append(System.lineSeparator()).append("  ").append(operation.getKey()).append(' ').append(outcome.getKey())
+                    .append(": ").append(outcome.getValue());
+            }
+        }
+        for (Map.Entry<String, Long> entry : getUnanswered().entrySet()) {
+            sb.append(System.lineSeparator()).append("  ").append(entry.getKey()).append(" unanswered: ").append(entry.getValue());
+        }
+        System.err.println(sb);
+    }
+
+    private static void write(Path file, String content) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(content);
+            }
+        } catch (IOException e) {
+            // Not logged, for the same reason as the summary.
+            System.err.println("Unable to write IQ metrics to " + file + ": " + e);
+        }
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static final class PendingRequest {
+
+        private final String operation;
+
+        private final long sentNanos;
+
+        private PendingRequest(String operation, long sentNanos) {
+            this.operation = operation;
+            this.sentNanos = sentNanos;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe, fixed-size latency histogram in the style of HdrHistogram.
+ *
+ * <p>Values are recorded in nanoseconds into log-linear buckets: every power of two is divided into 64 linear
+ * sub-buckets, which bounds the relative error of any reported percentile to below 1.6%, regardless of the magnitude
+ * of the value. Recording is lock-free and does not allocate, which makes it safe to use on Smack's stanza-processing
+ * threads.</p>
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of bits used to resolve values within one power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private static final int BUCKET_COUNT = 64 - SUB_BUCKET_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((BUCKET_COUNT + 1) * SUB_BUCKET_HALF_COUNT);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a single latency observation.
+     *
+     * @param nanos the observed latency, in nanoseconds. Negative values are recorded as zero.
+     */
+    public void recordNanos(long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexFor(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+        minNanos.accumulateAndGet(value, Math::min);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records a single latency observation.
+     *
+     * @param duration the observed latency.
+     * @param unit the unit in which the latency is expressed.
+     */
+    public void record(long duration, TimeUnit unit) {
+        recordNanos(unit.toNanos(duration));
+    }
+
+    /**
+     * Adds all observations of another histogram to this one.
+     *
+     * @param other the histogram to merge into this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length(); i++) {
+            final long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalNanos.addAndGet(other.totalNanos.get());
+        minNanos.accumulateAndGet(other.minNanos.get(), Math::min);
+        maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+    }
+
+    /**
+     * Returns the number of recorded observations.
+     *
+     * @return the observation count.
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the smallest recorded observation, or zero when nothing was recorded.
+     *
+     * @return the minimum, in nanoseconds.
+     */
+    public long getMinNanos() {
+        return getCount() == 0 ? 0 : minNanos.get();
+    }
+
+    /**
+     * Returns the largest recorded observation, or zero when nothing was recorded.
+     *
+     * @return the maximum, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the arithmetic mean of all observations, or zero when nothing was recorded.
+     *
+     * @return the mean, in nanoseconds.
+     */
+    public double getMeanNanos() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.get() / count;
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of observations fall.
+     *
+     * @param percentile a percentile in the range 0 to 100 (eg: 99.9).
+     * @return the value at the percentile, in nanoseconds, or zero when nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        final double requested = Math.min(Math.max(percentile, 0), 100);
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(requested / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Returns the number of observations at or below a value, with the resolution of this histogram: observations in
+     * the bucket that contains the value are all counted.
+     *
+     * @param nanos the value, in nanoseconds.
+     * @return the number of observations.
+     */
+    public long getCountAtOrBelow(long nanos) {
+        final int last = Math.min(indexFor(Math.max(0, nanos)), counts.length() - 1);
+        long result = 0;
+        for (int i = 0; i <= last; i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value at the given percentile, converted to milliseconds.
+     *
+     * @param percentile a percentile in the range 0 to 100 (eg: 99.9).
+     * @return the value at the percentile, in (fractional) milliseconds.
+     */
+    public double getMillisAtPercentile(double percentile) {
+        return getValueAtPercentile(percentile) / 1_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count=%d min=%.3fms p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+            getCount(), getMinNanos() / 1_000_000d, getMillisAtPercentile(50), getMillisAtPercentile(99),
+            getMillisAtPercentile(99.9), getMaxNanos() / 1_000_000d);
+    }
+
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int bucket = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> bucket);
+        return bucket * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int bucket = index / SUB_BUCKET_HALF_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
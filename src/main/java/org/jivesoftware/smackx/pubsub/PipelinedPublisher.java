@@ -0,0 +1,306 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+
+/**
+ * Publishes items without waiting for each publish request to be answered before sending the next one.
+ *
+ * <p>{@link LeafNode#publish(Item)} blocks until the service has responded, which limits a single connection to one
+ * publication per round-trip. This publisher keeps up to a fixed number of publish requests (the window) in flight on
+ * its connection. When the window is full, {@link #publish(LeafNode, Item)} blocks until a response frees a slot,
+ * which applies back-pressure to the caller rather than letting requests queue up without bound.</p>
+ *
+ * <p>Every publication is assigned a sequence number, in the order in which it was sent. Besides completing a future
+ * per publication, the publisher tracks the highest sequence number up to which all publications were answered, and
+ * how many responses arrived out of order.</p>
+ *
+ * <p>Futures are completed on the thread on which Smack processes the response. Dependent actions that are registered
+ * without an executor should therefore be short.</p>
+ */
+public final class PipelinedPublisher {
+
+    private static final Logger LOGGER = Logger.getLogger(PipelinedPublisher.class.getName());
+
+    /**
+     * The acknowledgement of a publication by the service.
+     */
+    public static final class Ack {
+
+        private final long sequence;
+
+        private final Item item;
+
+        private final long sentNanos;
+
+        private final long ackedNanos;
+
+        private Ack(long sequence, Item item, long sentNanos, long ackedNanos) {
+            this.sequence = sequence;
+            this.item = item;
+            this.sentNanos = sentNanos;
+            this.ackedNanos = ackedNanos;
+        }
+
+        /**
+         * Returns the position of the publication in the order in which publications were sent by this publisher.
+         *
+         * @return the sequence number, starting at 1.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the item that was published.
+         *
+         * @return the item, or null if an event without an item was published.
+         */
+        public Item getItem() {
+            return item;
+        }
+
+        /**
+         * Returns the time at which the publish request was sent, as obtained from {@link System#nanoTime()}.
+         *
+         * @return the time the request was sent.
+         */
+        public long getSentNanos() {
+            return sentNanos;
+        }
+
+        /**
+         * Returns the time at which the response was received, as obtained from {@link System#nanoTime()}.
+         *
+         * @return the time the response was received.
+         */
+        public long getAckedNanos() {
+            return ackedNanos;
+        }
+
+        public long getLatencyNanos() {
+            return ackedNanos - sentNanos;
+        }
+    }
+
+    private final XMPPConnection connection;
+
+    private final int window;
+
+    private final Semaphore slots;
+
+    private final Object sendLock = new Object();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final Object ackLock = new Object();
+
+    // Sequence numbers above the watermark that were answered. Guarded by ackLock.
+    private final Set<Long> answeredAboveWatermark = new TreeSet<>();
+
+    // Guarded by ackLock.
+    private long watermark;
+
+    // Guarded by ackLock.
+    private long highestAnswered;
+
+    // Guarded by ackLock.
+    private long outOfOrder;
+
+    /**
+     * Creates a publisher.
+     *
+     * @param connection the connection to publish on. The nodes that items are published to must be owned by, or
+     *                   otherwise allow publishing from, the account of this connection.
+     * @param window the maximum number of publish requests that are in flight at the same time.
+     */
+    public PipelinedPublisher(XMPPConnection connection, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("The window must be at least 1, but was " + window);
+        }
+        this.connection = connection;
+        this.window = window;
+        this.slots = new Semaphore(window);
+    }
+
+    /**
+     * Sends a request to publish an item to a node, blocking only while the window is full.
+     *
+     * <p>The returned future is completed with the acknowledgement of the service, or exceptionally with the
+     * exception that caused the publication to fail (typically an XMPPErrorException or a NoResponseException).</p>
+     *
+     * @param node the node to publish to.
+     * @param item the item to publish, or null to publish an event without an item, as is done for transient
+     *             notification-only nodes (see {@link LeafNode#publish()}).
+     * @return a future for the acknowledgement of the publication.
+     * @throws InterruptedException if the calling thread was interrupted while waiting for a slot in the window.
+     */
+    public CompletableFuture<Ack> publish(LeafNode node, Item item) throws InterruptedException {
+        slots.acquire();
+        final CompletableFuture<Ack> result = new CompletableFuture<>();
+        final NodeExtension publish = item == null ? new NodeExtension(PubSubElementType.PUBLISH, node.getId()) : new PublishItem<>(node.getId(), item);
+        final PubSub request = PubSub.createPubsubPacket(node.pubSubManager.getServiceJid(), IQ.Type.set, publish);
+        // Sequence numbers must reflect the order in which requests are sent, also when publishing from several threads.
+        synchronized (sendLock) {
+            final long sequence = sent.incrementAndGet();
+            final long sentNanos = System.nanoTime();
+            connection.sendIqRequestAsync(request)
+                .onSuccess(response -> {
+                    final long ackedNanos = System.nanoTime();
+                    answered(sequence);
+                    result.complete(new Ack(sequence, item, sentNanos, ackedNanos));
+                })
+                .onError(exception -> {
+                    failed.incrementAndGet();
+                    answered(sequence);
+                    result.completeExceptionally(exception);
+                });
+        }
+        return result;
+    }
+
+    /**
+     * Publishes items to a node at a fixed rate. The item with index <code>i</code> is sent <code>i</code> intervals
+     * after this method was invoked, or later when the window is full. This method returns when the last item was
+     * sent: {@link #awaitAnswers(long, TimeUnit)} waits for the responses, and {@link #getFailed()} returns the number
+     * of publications that failed. The first failure is logged.
+     *
+     * @param node the node to publish to.
+     * @param itemCount the number of items to publish.
+     * @param intervalNanos the time between two publications, in nanoseconds.
+     * @param items creates the item with a particular index. It is invoked immediately before the item is published,
+     *              so that it can record the moment of publication.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public void publishAtFixedRate(LeafNode node, int itemCount, long intervalNanos, IntFunction<Item> items) throws InterruptedException {
+        final AtomicBoolean failureLogged = new AtomicBoolean();
+        final long start = System.nanoTime();
+        for (int i = 0; i < itemCount; i++) {
+            final long wait = start + i * intervalNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            publish(node, items.apply(i)).whenComplete((ack, e) -> {
+                if (e != null && failureLogged.compareAndSet(false, true)) {
+                    LOGGER.log(Level.WARNING, "Publishing to " + node.getId() + " failed.", e);
+                }
+            });
+        }
+    }
+
+    private void answered(long sequence) {
+        synchronized (ackLock) {
+            if (sequence < highestAnswered) {
+                outOfOrder++;
+            } else {
+                highestAnswered = sequence;
+            }
+            answeredAboveWatermark.add(sequence);
+            while (answeredAboveWatermark.remove(watermark + 1)) {
+                watermark++;
+            }
+        }
+        slots.release();
+    }
+
+    /**
+     * Waits until all publications that were sent so far have been answered.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if all publications were answered, false if the timeout elapsed first.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public boolean awaitAnswers(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!slots.tryAcquire(window, timeout, unit)) {
+            return false;
+        }
+        slots.release(window);
+        return true;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Returns the number of publish requests that were sent, but not yet answered.
+     *
+     * @return the number of publications in flight.
+     */
+    public int getInFlight() {
+        return window - slots.availablePermits();
+    }
+
+    /**
+     * Returns the number of publish requests that were sent.
+     *
+     * @return the number of sent requests.
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Returns the number of publish requests that were answered with an error, or that were not answered in time.
+     *
+     * @return the number of failed publications.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the highest sequence number for which it holds that all publications up to and including it have been
+     * answered (successfully or not).
+     *
+     * @return the sequence number up to which all publications were answered, or 0 if the first publication was not
+     * yet answered.
+     */
+    public long getAnsweredWatermark() {
+        synchronized (ackLock) {
+            return watermark;
+        }
+    }
+
+    /**
+     * Returns the number of responses that arrived after the response to a publication that was sent later.
+     *
+     * @return the number of out-of-order responses.
+     */
+    public long getOutOfOrderAnswers() {
+        synchronized (ackLock) {
+            return outOfOrder;
+        }
+    }
+}
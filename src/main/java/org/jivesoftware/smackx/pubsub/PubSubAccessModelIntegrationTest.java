@@ -0,0 +1,308 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.roster.Roster;
+import org.jivesoftware.smack.roster.RosterEntry;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+import org.jxmpp.jid.BareJid;
+import org.jxmpp.jid.impl.JidCreate;
+
+/**
+ * Measures the cost of access control, by applying the same publish and subscribe load to nodes with different access
+ * models.
+ *
+ * <p>For every access model, a node is created with that model, the subscribers are authorised in the way that the
+ * model requires, and they subscribe to the node. Then, items are published to the node as fast as the publish window
+ * allows. The report contains, per access model, the subscribe rate, the publish rate and round-trip time, the rate at
+ * which notifications were delivered, the number of missed and duplicate notifications, and the notification latency.
+ * The subscribe rate excludes the disco#info request with which every subscriber looks up the node. As services may
+ * check authorisation when delivering notifications, and as such checks may depend on the size of the roster of the
+ * node owner, the measurement is repeated for several roster sizes, by adding contacts that are not subscribers to the
+ * roster of the owner.</p>
+ *
+ * <p>Subscribers are authorised as follows:</p>
+ * <ul>
+ *     <li><code>open</code>: no authorisation is needed.</li>
+ *     <li><code>presence</code>: every subscriber is subscribed to the presence of the owner, which the owner
+ *     approves.</li>
+ *     <li><code>roster</code>: every subscriber is in a roster group of the owner that is allowed by the node
+ *     configuration.</li>
+ *     <li><code>whitelist</code>: every subscriber is made a member of the node.</li>
+ * </ul>
+ * <p>Access models that the service does not support, or for which the subscribers could not be authorised (for example
+ * because the service does not implement rosters), are reported as such, rather than failing the benchmark. Roster
+ * items and presence subscriptions that were added by the benchmark are removed again when it ends.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>accessModel</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.accessModel.*</code> properties:</p>
+ * <ul>
+ *     <li><code>models</code> - comma-separated list of the access models to measure, out of <code>open</code>,
+ *     <code>presence</code>, <code>roster</code> and <code>whitelist</code> (default: all)</li>
+ *     <li><code>rosterSizes</code> - comma-separated numbers of contacts, other than the subscribers, in the roster of
+ *     the owner, one step per number (default 0,100)</li>
+ *     <li><code>subscribers</code> - number of subscribers, each with an account of its own (default 10)</li>
+ *     <li><code>items</code> - number of items published per access model and roster size (default 500)</li>
+ *     <li><code>window</code> - maximum number of publish requests in flight (default 16)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>rosterTimeoutSeconds</code> - time to wait for presence subscriptions to be approved (default 10)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for outstanding notifications after the last item was
+ *     published (default 30)</li>
+ *     <li><code>slo.minItemsPerSecond</code>, <code>slo.p99Millis</code> - service level objectives for the publish
+ *     rate and for the notification latency, for every access model (default: not checked)</li>
+ *     <li><code>slo.maxMissed</code> - number of missed notifications that is tolerated per access model (default
+ *     0)</li>
+ * </ul>
+ */
+public class PubSubAccessModelIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "accessModel";
+
+    private static final List<String> ALL_MODELS = Arrays.asList("open", "presence", "roster", "whitelist");
+
+    public PubSubAccessModelIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Publishes to, and receives notifications from, nodes with each of the configured access models, for every
+     * configured roster size, and asserts that the configured objectives are met.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     */
+    @SmackIntegrationTest
+    public void accessModelTest() throws InterruptedException, SmackException, IOException, XMPPException {
+        final List<String> models = Arrays.asList(PubSubBenchmarkConfiguration.getString(BENCHMARK, "models", String.join(",", ALL_MODELS)).split("\\s*,\\s*"));
+        final List<Integer> rosterSizes = new ArrayList<>(new TreeSet<>(PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "rosterSizes", 0, 100)));
+        final int subscriberCount = getIntSetting("subscribers", 10);
+        final int itemCount = getIntSetting("items", 500);
+        final int window = getIntSetting("window", 16);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int rosterTimeoutSeconds = getIntSetting("rosterTimeoutSeconds", 10);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+        final double minItemsPerSecond = getDoubleSetting("slo.minItemsPerSecond", 0);
+        final double maxP99Millis = getDoubleSetting("slo.p99Millis", 0);
+        final int maxMissed = getIntSetting("slo.maxMissed", 0);
+        for (String model : models) {
+            if (!ALL_MODELS.contains(model)) {
+                throw new IllegalArgumentException("Unknown access model in " + PubSubBenchmarkConfiguration.PROPERTY_PREFIX + BENCHMARK + ".models: " + model);
+            }
+        }
+
+        // The first connection of the pool owns the nodes and publishes. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+        final String rosterGroup = "sinttest-" + BENCHMARK + '-' + testRunId;
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        final BenchmarkReport report = newReport()
+            .put("models", models)
+            .put("rosterSizes", rosterSizes)
+            .put("subscribers", subscriberCount)
+            .put("items", itemCount)
+            .put("window", window);
+        final List<Runnable> sloChecks = new ArrayList<>();
+
+        final Roster roster = Roster.getInstanceFor(conOne);
+        final Roster.SubscriptionMode subscriptionMode = roster.getSubscriptionMode();
+        final List<BareJid> contacts = new ArrayList<>();
+        try {
+            if (models.contains("presence") || models.contains("roster")) {
+                report.put("presenceSubscriptionsApproved", authorizeByRoster(roster, subscribers, rosterGroup, rosterTimeoutSeconds));
+            }
+            for (int rosterSize : rosterSizes) {
+                while (contacts.size() < rosterSize) {
+                    final BareJid contact = JidCreate.entityBareFrom("sinttest-" + BENCHMARK + "-contact" + contacts.size() + '-' + testRunId + '@' + conOne.getXMPPServiceDomain());
+                    roster.createItem(contact, null, null);
+                    contacts.add(contact);
+                }
+
+                for (String model : models) {
+                    final String prefix = "roster" + rosterSize + '.' + model;
+                    final String nodename = nodename(model + "-roster" + rosterSize);
+                    final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+                    config.setAccessModel(AccessModel.valueOf(model));
+                    if ("roster".equals(model)) {
+                        config.setRosterGroupsAllowed(Collections.singletonList(rosterGroup));
+                    }
+                    try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne);
+                         PubSubSubscriberGroup group = new PubSubSubscriberGroup(subscribers, pubSubService, nodename)) {
+                        final LeafNode node;
+                        try {
+                            node = fixture.createNodes(Collections.singletonList(nodename), config).get(0);
+                        } catch (XMPPErrorException e) {
+                            LOGGER.log(Level.INFO, "Access model '" + model + "' is not supported by " + pubSubService + ".", e);
+                            report.put(prefix + ".supported", false);
+                            continue;
+                        }
+                        report.put(prefix + ".supported", true);
+                        if ("whitelist".equals(model)) {
+                            final List<Affiliation> members = new ArrayList<>();
+                            for (XMPPConnection subscriber : subscribers) {
+                                members.add(new Affiliation(subscriber.getUser().asBareJid(), Affiliation.Type.member));
+                            }
+                            node.modifyAffiliationAsOwner(members);
+                        }
+
+                        try {
+                            group.subscribe(subscribeConcurrency);
+                        } catch (ExecutionException e) {
+                            LOGGER.info("Subscribers could not be authorised for access model '" + model + "': " + e.getCause().getMessage());
+                            report.put(prefix + ".authorized", false)
+                                .put(prefix + ".authorizationError", e.getCause().getMessage());
+                            continue;
+                        }
+                        final double subscribesPerSecond = group.getSubscribeNanos() == 0 ? 0 : subscriberCount / (group.getSubscribeNanos() / 1_000_000_000d);
+
+                        final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+                        final LatencyHistogram publish = new LatencyHistogram();
+                        final AtomicLong errors = new AtomicLong();
+                        final long start = System.nanoTime();
+                        for (int i = 0; i < itemCount; i++) {
+                            final String itemId = "item" + i;
+                            group.published(itemId);
+                            publisher.publish(node, new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build()))
+                                .whenComplete((ack, e) -> {
+                                    if (e != null) {
+                                        if (errors.getAndIncrement() == 0) {
+                                            LOGGER.log(Level.WARNING, "Publishing to " + nodename + " failed.", e);
+                                        }
+                                        return;
+                                    }
+                                    publish.recordNanos(ack.getLatencyNanos());
+                                });
+                        }
+                        publisher.awaitAnswers(deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                        final double itemsPerSecond = publish.getCount() / ((System.nanoTime() - start) / 1_000_000_000d);
+                        group.awaitDeliveries(itemCount, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                        final double notificationsPerSecond = group.getTotalDeliveries() / ((System.nanoTime() - start) / 1_000_000_000d);
+                        final long missed = Math.max(0, (long) itemCount * subscriberCount - group.getTotalDeliveries());
+
+                        report.put(prefix + ".authorized", true)
+                            .put(prefix + ".subscribesPerSecond", subscribesPerSecond)
+                            .put(prefix + ".itemsPerSecond", itemsPerSecond)
+                            .put(prefix + ".publishErrors", errors.get())
+                            .put(prefix + ".notificationsPerSecond", notificationsPerSecond)
+                            .put(prefix + ".missedNotifications", missed)
+                            .put(prefix + ".duplicateNotifications", group.getDuplicates())
+                            .put(prefix + ".publish", publish)
+                            .put(prefix + ".latency", group.getLatencies());
+                        sloChecks.add(() -> {
+                            final String label = String.format(Locale.ROOT, "'%s' with %d roster contacts", model, rosterSize);
+                            assertTrue(missed <= maxMissed, "Notifications were missed for " + label + ": " + missed + " (tolerated: " + maxMissed + ")");
+                            assertSlo(label + " publish throughput (items/sec)", itemsPerSecond, minItemsPerSecond, true);
+                            assertSlo(label + " p99 notification latency (ms)", group.getLatencies().getMillisAtPercentile(99), maxP99Millis, false);
+                        });
+                    }
+                }
+            }
+        } finally {
+            roster.setSubscriptionMode(subscriptionMode);
+            removeRosterItems(roster, contacts);
+            for (XMPPConnection subscriber : subscribers) {
+                removeRosterItems(roster, Collections.singletonList(subscriber.getUser().asBareJid()));
+                removeRosterItems(Roster.getInstanceFor(subscriber), Collections.singletonList(conOne.getUser().asBareJid()));
+            }
+        }
+        report.publish();
+        for (Runnable sloCheck : sloChecks) {
+            sloCheck.run();
+        }
+    }
+
+    /**
+     * Adds every subscriber to a group in the roster of the owner, and subscribes every subscriber to the presence of
+     * the owner, which the owner approves automatically.
+     *
+     * @return the number of subscribers of which the presence subscription was approved within the timeout.
+     */
+    private int authorizeByRoster(Roster roster, List<XMPPConnection> subscribers, String rosterGroup, int timeoutSeconds)
+            throws InterruptedException, SmackException, XMPPErrorException {
+        roster.setSubscriptionMode(Roster.SubscriptionMode.accept_all);
+        final BareJid owner = conOne.getUser().asBareJid();
+        for (XMPPConnection subscriber : subscribers) {
+            roster.createItem(subscriber.getUser().asBareJid(), null, new String[] {rosterGroup});
+            Roster.getInstanceFor(subscriber).sendSubscriptionRequest(owner);
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (true) {
+            int approved = 0;
+            for (XMPPConnection subscriber : subscribers) {
+                final RosterEntry entry = roster.getEntry(subscriber.getUser().asBareJid());
+                if (entry != null && entry.canSeeMyPresence()) {
+                    approved++;
+                }
+            }
+            if (approved == subscribers.size() || System.nanoTime() - deadline >= 0) {
+                if (approved < subscribers.size()) {
+                    LOGGER.info("Presence subscriptions of " + (subscribers.size() - approved) + " subscribers were not approved within " + timeoutSeconds + " seconds.");
+                }
+                return approved;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Removes items from a roster, which also cancels the presence subscriptions with these contacts.
+     */
+    private static void removeRosterItems(Roster roster, List<BareJid> jids) throws InterruptedException {
+        for (BareJid jid : jids) {
+            final RosterEntry entry = roster.getEntry(jid);
+            if (entry == null) {
+                continue;
+            }
+            try {
+                roster.removeEntry(entry);
+            } catch (SmackException | XMPPErrorException e) {
+                LOGGER.log(Level.FINE, "Unable to remove " + jid + " from the roster.", e);
+            }
+        }
+    }
+}
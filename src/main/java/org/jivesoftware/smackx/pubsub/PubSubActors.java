@@ -0,0 +1,126 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Provides the executors on which the PubSub benchmarks run their publisher and subscriber actors.
+ *
+ * <p>Actors are plain tasks that use the blocking Smack API, such as {@link Node#subscribe(String)} and
+ * {@link LeafNode#publish(Item)}. By default, they are executed on a fixed pool of platform threads, which limits the
+ * number of actors that can block at the same time. When <code>sinttest.pubsub.virtualThreads.enabled</code> is set
+ * to <code>true</code> and the JVM supports virtual threads (Java 21 and later), every actor is instead executed on a
+ * virtual thread of its own, which allows for many thousands of concurrently blocking actors. As this project
+ * targets Java 8, virtual threads are obtained reflectively. On JVMs that do not support them, a warning is logged and
+ * platform threads are used.</p>
+ */
+public final class PubSubActors {
+
+    private static final Logger LOGGER = Logger.getLogger(PubSubActors.class.getName());
+
+    public static final String SETTINGS = "virtualThreads";
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutorFactory();
+
+    private static volatile boolean warned;
+
+    private PubSubActors() {
+    }
+
+    private static Method findVirtualThreadPerTaskExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads.
+     *
+     * @return true if virtual threads are available.
+     */
+    public static boolean isVirtualThreadSupportAvailable() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Checks if actors are executed on virtual threads: they must be enabled, and supported by the JVM.
+     *
+     * @return true if actors are executed on virtual threads.
+     */
+    public static boolean isUsingVirtualThreads() {
+        if (!PubSubBenchmarkConfiguration.getBoolean(SETTINGS, "enabled", false)) {
+            return false;
+        }
+        if (!isVirtualThreadSupportAvailable()) {
+            if (!warned) {
+                warned = true;
+                LOGGER.warning("Virtual threads are enabled, but not supported by this JVM (" + System.getProperty("java.version") + "). Using platform threads instead.");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates an executor for actors.
+     *
+     * @param platformThreads the number of threads to use when actors are executed on platform threads. This is
+     *                        ignored when virtual threads are used, in which case every task gets its own thread.
+     * @return a new executor, which must be shut down by the caller.
+     */
+    public static ExecutorService newExecutor(int platformThreads) {
+        if (isUsingVirtualThreads()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.log(Level.WARNING, "Unable to create a virtual thread executor. Using platform threads instead.", e);
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads));
+    }
+
+    /**
+     * Waits until a condition holds, checking it every few milliseconds. Benchmarks wait for notifications this way:
+     * polling counters that the listener threads update is cheaper than having every notification signal a monitor
+     * that all listener threads would contend for.
+     *
+     * @param condition the condition to wait for.
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if the condition holds, false if the timeout elapsed first.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public static boolean awaitCondition(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Access to the configuration of the PubSub benchmarks, which is provided as Java system properties.
+ *
+ * <p>All properties share the <code>sinttest.pubsub.</code> prefix. Benchmarks are opt-in: a benchmark only runs
+ * when its name (or the value <code>all</code>) is listed in the comma-separated <code>sinttest.pubsub.benchmarks</code>
+ * property. Benchmark-specific settings are read from <code>sinttest.pubsub.&lt;benchmark&gt;.&lt;setting&gt;</code>.</p>
+ */
+public final class PubSubBenchmarkConfiguration {
+
+    public static final String PROPERTY_PREFIX = "sinttest.pubsub.";
+
+    public static final String ENABLED_BENCHMARKS_PROPERTY = PROPERTY_PREFIX + "benchmarks";
+
+    public static final String REPORT_DIRECTORY_PROPERTY = PROPERTY_PREFIX + "reportDir";
+
+    private PubSubBenchmarkConfiguration() {
+    }
+
+    /**
+     * Checks if a benchmark was enabled by the user.
+     *
+     * @param benchmark the name of the benchmark.
+     * @return true if the benchmark is to be executed.
+     */
+    public static boolean isEnabled(String benchmark) {
+        final String value = System.getProperty(ENABLED_BENCHMARKS_PROPERTY);
+        if (value == null) {
+            return false;
+        }
+        for (String enabled : value.split(",")) {
+            final String name = enabled.trim();
+            if (name.equalsIgnoreCase("all") || name.equalsIgnoreCase(benchmark)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of a property as a string.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValue the value to return if the property is not set.
+     * @return the configured value, or the default value.
+     */
+    public static String getString(String benchmark, String setting, String defaultValue) {
+        final String value = System.getProperty(PROPERTY_PREFIX + benchmark + '.' + setting);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    /**
+     * Returns the value of a property as an integer.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValue the value to return if the property is not set.
+     * @return the configured value, or the default value.
+     * @throws IllegalArgumentException if the property is set to a value that is not an integer.
+     */
+    public static int getInt(String benchmark, String setting, int defaultValue) {
+        final String value = getString(benchmark, setting, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + PROPERTY_PREFIX + benchmark + '.' + setting + " is not an integer: " + value, e);
+        }
+    }
+
+    /**
+     * Returns the value of a property as a long.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValue the value to return if the property is not set.
+     * @return the configured value, or the default value.
+     * @throws IllegalArgumentException if the property is set to a value that is not a long.
+     */
+    public static long getLong(String benchmark, String setting, long defaultValue) {
+        final String value = getString(benchmark, setting, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + PROPERTY_PREFIX + benchmark + '.' + setting + " is not a long: " + value, e);
+        }
+    }
+
+    /**
+     * Returns the value of a property as a double.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValue the value to return if the property is not set.
+     * @return the configured value, or the default value.
+     * @throws IllegalArgumentException if the property is set to a value that is not a number.
+     */
+    public static double getDouble(String benchmark, String setting, double defaultValue) {
+        final String value = getString(benchmark, setting, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + PROPERTY_PREFIX + benchmark + '.' + setting + " is not a number: " + value, e);
+        }
+    }
+
+    /**
+     * Returns the value of a property as a list of integers, separated by commas.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValues the values to return if the property is not set.
+     * @return the configured values, or the default values.
+     * @throws IllegalArgumentException if the property is set to a value that is not a list of integers.
+     */
+    public static List<Integer> getIntList(String benchmark, String setting, Integer... defaultValues) {
+        final String value = getString(benchmark, setting, null);
+        if (value == null) {
+            return Arrays.asList(defaultValues);
+        }
+        final List<Integer> result = new ArrayList<>();
+        for (String element : value.split(",")) {
+            try {
+                result.add(Integer.parseInt(element.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Property " + PROPERTY_PREFIX + benchmark + '.' + setting + " is not a list of integers: " + value, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of a property as a boolean.
+     *
+     * @param benchmark the name of the benchmark that the property belongs to.
+     * @param setting the name of the setting.
+     * @param defaultValue the value to return if the property is not set.
+     * @return the configured value, or the default value.
+     */
+    public static boolean getBoolean(String benchmark, String setting, boolean defaultValue) {
+        final String value = getString(benchmark, setting, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the directory to which benchmark reports are written, if any.
+     *
+     * @return the report directory, or null if reports are only logged.
+     */
+    public static String getReportDirectory() {
+        final String value = System.getProperty(REPORT_DIRECTORY_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
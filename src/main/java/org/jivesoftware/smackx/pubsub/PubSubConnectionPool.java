@@ -0,0 +1,100 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.XmppConnectionManager;
+
+/**
+ * A run-wide collection of authenticated connections, used by tests that need more than the three connections that
+ * the framework provides.
+ *
+ * <p>The first three connections of the pool are the framework-provided <code>conOne</code>, <code>conTwo</code> and
+ * <code>conThree</code>. Additional connections are created on demand through the framework's
+ * {@link XmppConnectionManager}, which registers a fresh account for each of them (using the configured admin account
+ * or in-band registration) and removes those accounts again when the test run ends. Connections are retained for the
+ * remainder of the run, so that subsequent tests can re-use them without having to pay the cost of account creation
+ * and authentication again.</p>
+ */
+public final class PubSubConnectionPool {
+
+    private static final Map<XmppConnectionManager, PubSubConnectionPool> INSTANCES = new WeakHashMap<>();
+
+    private final XmppConnectionManager connectionManager;
+
+    private final String testRunId;
+
+    private final List<XMPPConnection> connections = new ArrayList<>();
+
+    private PubSubConnectionPool(SmackIntegrationTestEnvironment environment) {
+        this.connectionManager = environment.connectionManager;
+        this.testRunId = environment.testRunId;
+        connections.add(environment.conOne);
+        connections.add(environment.conTwo);
+        connections.add(environment.conThree);
+    }
+
+    /**
+     * Returns the pool of the test run that the environment belongs to.
+     *
+     * @param environment the environment of the test run.
+     * @return the connection pool for the run.
+     */
+    public static synchronized PubSubConnectionPool getInstanceFor(SmackIntegrationTestEnvironment environment) {
+        return INSTANCES.computeIfAbsent(environment.connectionManager, manager -> new PubSubConnectionPool(environment));
+    }
+
+    /**
+     * Returns the number of connections in the pool.
+     *
+     * @return the number of connections that were created so far, including the three provided by the framework.
+     */
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the requested amount of authenticated connections, creating new ones if the pool does not yet hold
+     * enough of them. Every connection is associated with a different account.
+     *
+     * @param count the number of connections that is needed.
+     * @return an unmodifiable list of exactly <code>count</code> connections.
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation while connecting.
+     * @throws IOException if an I/O error occurred while connecting.
+     * @throws XMPPException if an XMPP protocol error was received while connecting.
+     */
+    public synchronized List<XMPPConnection> getConnections(int count) throws InterruptedException, SmackException, IOException, XMPPException {
+        while (connections.size() < count) {
+            final XMPPConnection connection = connectionManager.constructConnectedConnection();
+            IqMetrics.instrumentIfEnabled(testRunId, connection);
+            connections.add(connection);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(connections.subList(0, count)));
+    }
+}
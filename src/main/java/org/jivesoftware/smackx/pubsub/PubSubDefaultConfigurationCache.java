@@ -0,0 +1,96 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smackx.pubsub.form.ConfigureForm;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+
+import org.jxmpp.jid.BareJid;
+
+/**
+ * A run-wide cache of the default node configuration of PubSub services.
+ *
+ * <p>Retrieving the default configuration (XEP-0060 § 8.3) requires a round-trip to the service. As the default
+ * configuration does not change during a test run, it is retrieved once per service, after which every caller
+ * receives its own {@link FillableConfigureForm}, created locally from the cached form. Callers that change the
+ * default configuration of a service (or that need to observe such a change) can use {@link #invalidate(BareJid)}.</p>
+ */
+public final class PubSubDefaultConfigurationCache {
+
+    private static final Map<BareJid, ConfigureForm> CACHE = new ConcurrentHashMap<>();
+
+    private PubSubDefaultConfigurationCache() {
+    }
+
+    /**
+     * Returns the default node configuration of the service of a PubSub manager, retrieving it if it is not cached.
+     *
+     * @param pubSubManager the manager for the service.
+     * @return the default node configuration.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public static ConfigureForm getDefaultConfiguration(PubSubManager pubSubManager) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final BareJid service = pubSubManager.getServiceJid();
+        final ConfigureForm cached = CACHE.get(service);
+        if (cached != null) {
+            return cached;
+        }
+        final ConfigureForm retrieved = pubSubManager.getDefaultConfiguration();
+        final ConfigureForm concurrentlyRetrieved = CACHE.putIfAbsent(service, retrieved);
+        return concurrentlyRetrieved != null ? concurrentlyRetrieved : retrieved;
+    }
+
+    /**
+     * Returns a new, fillable copy of the default node configuration of the service of a PubSub manager. Changes to
+     * the returned form do not affect the cached configuration.
+     *
+     * @param pubSubManager the manager for the service.
+     * @return a fillable form, pre-populated with the default node configuration.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public static FillableConfigureForm getFillableForm(PubSubManager pubSubManager) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        return getDefaultConfiguration(pubSubManager).getFillableForm();
+    }
+
+    /**
+     * Removes the cached default node configuration of a service, causing it to be retrieved again on next use.
+     *
+     * @param service the address of the PubSub service.
+     */
+    public static void invalidate(BareJid service) {
+        CACHE.remove(service);
+    }
+
+    /**
+     * Removes the cached default node configuration of all services.
+     */
+    public static void invalidateAll() {
+        CACHE.clear();
+    }
+}
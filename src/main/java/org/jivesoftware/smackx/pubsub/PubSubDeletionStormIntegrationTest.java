@@ -0,0 +1,243 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.Stanza;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures how a PubSub service copes with the burst of notifications that results from deleting nodes that have many
+ * subscribers.
+ *
+ * <p>Every subscriber is subscribed to every node. Then, all nodes are deleted concurrently, and every subscriber is
+ * expected to receive one deletion notification for every node. The benchmark reports the time from the first deletion
+ * request until the last notification arrived, the lag with which notifications were delivered (measured from the
+ * moment the deletion of their node was requested), the worst lag per subscriber, and the number of notifications that
+ * were missed or delivered more than once. Subscribers that received no notification at all are counted separately, and
+ * left out of the worst lag per subscriber.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>deletionStorm</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.deletionStorm.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscribers</code> - number of subscribers, each with an account of its own (default 100)</li>
+ *     <li><code>nodes</code> - number of nodes (default 10)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>deleteConcurrency</code> - number of concurrent deletion requests (default: all nodes at once)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for notifications after the last node was deleted
+ *     (default 30)</li>
+ *     <li><code>slo.timeToLastNotificationMillis</code> - maximum time from the first deletion request until the last
+ *     notification (default: not checked)</li>
+ *     <li><code>slo.maxMissed</code> - number of missed notifications that is tolerated (default 0)</li>
+ * </ul>
+ */
+public class PubSubDeletionStormIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "deletionStorm";
+
+    public PubSubDeletionStormIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Subscribes many accounts to many nodes, deletes the nodes concurrently, and records how the deletion
+     * notifications are delivered.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription or deletion request failed.
+     */
+    @SmackIntegrationTest
+    public void deletionStormTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final int subscriberCount = getIntSetting("subscribers", 100);
+        final int nodeCount = getIntSetting("nodes", 10);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deleteConcurrency = Math.max(1, getIntSetting("deleteConcurrency", nodeCount));
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+        final double maxTimeToLastNotificationMillis = getDoubleSetting("slo.timeToLastNotificationMillis", 0);
+        final int maxMissed = getIntSetting("slo.maxMissed", 0);
+
+        // The first connection of the pool owns the nodes. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+        final List<String> nodeIds = new ArrayList<>();
+        final Map<String, Integer> nodeIndexes = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodeIds.add(nodename("node" + i));
+            nodeIndexes.put(nodeIds.get(i), i);
+        }
+
+        final long expected = (long) subscriberCount * nodeCount;
+        final AtomicLongArray deleteRequested = new AtomicLongArray(nodeCount);
+        final AtomicIntegerArray received = new AtomicIntegerArray(subscriberCount * nodeCount);
+        final AtomicLongArray maxLagPerSubscriber = new AtomicLongArray(subscriberCount);
+        final AtomicLong notifications = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong lastNotification = new AtomicLong();
+        final LatencyHistogram lag = new LatencyHistogram();
+        final LatencyHistogram deleteRoundTrip = new LatencyHistogram();
+
+        final List<ScopedStanzaListener> listeners = new ArrayList<>();
+        final ExecutorService executor = PubSubActors.newExecutor(Math.max(subscribeConcurrency, deleteConcurrency));
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            fixture.createNodes(nodeIds);
+
+            final List<Future<Subscription>> subscriptions = new ArrayList<>();
+            for (int s = 0; s < subscriberCount; s++) {
+                final XMPPConnection subscriber = subscribers.get(s);
+                final int subscriberIndex = s;
+                listeners.add(ScopedStanzaListener.sync(subscriber, stanza -> {
+                    final long now = System.nanoTime();
+                    final Integer nodeIndex = getDeletedNodeIndex(stanza, nodeIndexes);
+                    if (nodeIndex == null) {
+                        return;
+                    }
+                    if (received.getAndIncrement(subscriberIndex * nodeCount + nodeIndex) > 0) {
+                        duplicates.incrementAndGet();
+                        return;
+                    }
+                    final long nodeLag = now - deleteRequested.get(nodeIndex);
+                    lag.recordNanos(nodeLag);
+                    maxLagPerSubscriber.accumulateAndGet(subscriberIndex, nodeLag, Math::max);
+                    lastNotification.accumulateAndGet(now, Math::max);
+                    notifications.incrementAndGet();
+                }, PubSubEventFilter.ANY));
+                final PubSubManager manager = getPubSubManager(subscriber);
+                for (String nodeId : nodeIds) {
+                    subscriptions.add(executor.submit(() -> manager.getNode(nodeId).subscribe(subscriber.getUser().asEntityBareJid())));
+                }
+                // Limit the number of queued subscription requests, to keep memory use flat for large numbers of subscribers.
+                if (subscriptions.size() >= subscribeConcurrency * nodeCount) {
+                    for (Future<Subscription> subscription : subscriptions) {
+                        subscription.get();
+                    }
+                    subscriptions.clear();
+                }
+            }
+            for (Future<Subscription> subscription : subscriptions) {
+                subscription.get();
+            }
+
+            // The executor may run on virtual threads, which are not limited in number: a semaphore bounds the number of
+            // deletion requests that are in flight.
+            final Semaphore deletePermits = new Semaphore(deleteConcurrency);
+            final long stormStart = System.nanoTime();
+            final List<Future<Void>> deletions = new ArrayList<>();
+            for (int n = 0; n < nodeCount; n++) {
+                final int nodeIndex = n;
+                deletions.add(executor.submit(() -> {
+                    deletePermits.acquire();
+                    try {
+                        final long start = System.nanoTime();
+                        deleteRequested.set(nodeIndex, start);
+                        pubSubManagerOne.deleteNode(nodeIds.get(nodeIndex));
+                        deleteRoundTrip.recordNanos(System.nanoTime() - start);
+                    } finally {
+                        deletePermits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> deletion : deletions) {
+                deletion.get();
+            }
+
+            PubSubActors.awaitCondition(() -> notifications.get() >= expected, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+            final long missed = expected - notifications.get();
+            final double timeToLastNotificationMillis = lastNotification.get() == 0 ? 0 : (lastNotification.get() - stormStart) / 1_000_000d;
+
+            // A worst lag of 0 means that the subscriber received no notification at all, which is counted, not recorded.
+            final LatencyHistogram subscriberLag = new LatencyHistogram();
+            int subscribersMissingNotifications = 0;
+            int subscribersWithoutNotifications = 0;
+            for (int s = 0; s < subscriberCount; s++) {
+                if (maxLagPerSubscriber.get(s) == 0) {
+                    subscribersWithoutNotifications++;
+                } else {
+                    subscriberLag.recordNanos(maxLagPerSubscriber.get(s));
+                }
+                for (int n = 0; n < nodeCount; n++) {
+                    if (received.get(s * nodeCount + n) == 0) {
+                        subscribersMissingNotifications++;
+                        break;
+                    }
+                }
+            }
+
+            final BenchmarkReport report = newReport()
+                .put("subscribers", subscriberCount)
+                .put("nodes", nodeCount)
+                .put("deleteConcurrency", deleteConcurrency)
+                .put("expectedNotifications", expected)
+                .put("receivedNotifications", notifications.get())
+                .put("missedNotifications", missed)
+                .put("duplicateNotifications", duplicates.get())
+                .put("subscribersMissingNotifications", subscribersMissingNotifications)
+                .put("subscribersWithoutNotifications", subscribersWithoutNotifications)
+                .put("timeToLastNotificationMillis", timeToLastNotificationMillis)
+                .put("deleteRequest", deleteRoundTrip)
+                .put("deliveryLag", lag)
+                .put("subscriberLag", subscriberLag);
+            report.publish();
+
+            assertTrue(missed <= maxMissed, "Deletion notifications were missed: " + missed + " of " + expected + " (tolerated: " + maxMissed + ")");
+            assertSlo("time to last deletion notification (ms)", timeToLastNotificationMillis, maxTimeToLastNotificationMillis, false);
+        } finally {
+            executor.shutdownNow();
+            listeners.forEach(ScopedStanzaListener::close);
+        }
+    }
+
+    /**
+     * Returns the index of the node of which a stanza notifies the deletion, or null if the stanza is not a deletion
+     * notification of one of the nodes of this benchmark.
+     */
+    private static Integer getDeletedNodeIndex(Stanza stanza, Map<String, Integer> nodeIndexes) {
+        final EventElement event = EventElement.from(stanza);
+        if (event == null || event.getEventType() != EventElementType.delete || event.getEvent() == null) {
+            return null;
+        }
+        return nodeIndexes.get(event.getEvent().getNode());
+    }
+}
@@ -0,0 +1,370 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.ExtensionElement;
+import org.jivesoftware.smack.packet.NamedElement;
+import org.jivesoftware.smack.packet.Stanza;
+import org.jivesoftware.smack.packet.StanzaError;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.pubsub.form.FillableSubscribeForm;
+import org.jivesoftware.smackx.pubsub.form.SubscribeForm;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures how subscription options, and digests in particular, affect the number of notification stanzas that
+ * subscribers receive, and the delay with which they learn about published items.
+ *
+ * <p>Subscribers are divided into groups, that each subscribe to the same node with different subscription options:
+ * one group per configured digest frequency (where a frequency of zero means that digests are off, and every item is
+ * notified as it is published), and optionally a group that has the delivery of notifications switched off. Items are
+ * then published to the node at a fixed rate. For every group, the report contains the number of notification stanzas
+ * per subscriber, the number of items per stanza, the reduction in stanzas compared to the number of published items,
+ * the delay between the publication of an item and the receipt of the stanza that notified it, and the number of items
+ * that were missed. Items that a subscriber is notified of more than once are counted once, and reported as duplicates.
+ * For the group without delivery, it contains the number of stanzas that were received even so.</p>
+ *
+ * <p>Groups whose subscription options are rejected by the service, for example because it does not implement digests,
+ * are reported as not supported, rather than failing the benchmark.</p>
+ *
+ * <p>The subscription options form is retrieved once per group, by its first subscriber, which subscribes without
+ * options to do so, as the form can only be retrieved for an existing subscription, and unsubscribes again. After that,
+ * every subscriber of the group subscribes with its options included in the subscription request (XEP-0060 § 6.3.7), so
+ * that subscribing takes a single round-trip per subscriber. The latency of both is reported. Subscribers look up the
+ * node before their subscription request is timed.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>digest</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.digest.*</code> properties:</p>
+ * <ul>
+ *     <li><code>digestFrequencies</code> - comma-separated digest frequencies in milliseconds, one group per frequency
+ *     (default 0,1000,5000)</li>
+ *     <li><code>deliverOff</code> - whether to add a group that has the delivery of notifications switched off (default
+ *     true)</li>
+ *     <li><code>includeBody</code> - whether subscribers ask for a message body in notifications (default false)</li>
+ *     <li><code>subscribersPerGroup</code> - number of subscribers in every group, each with an account of its own
+ *     (default 10)</li>
+ *     <li><code>publishRate</code> - number of items published per second (default 10)</li>
+ *     <li><code>durationSeconds</code> - duration of the publishing phase (default 20)</li>
+ *     <li><code>window</code> - maximum number of publish requests in flight (default 16)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for outstanding notifications after the last item was
+ *     published, in addition to the largest digest frequency (default 30)</li>
+ *     <li><code>slo.maxMissed</code> - number of missed item notifications that is tolerated per group (default 0)</li>
+ * </ul>
+ */
+public class PubSubDigestIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "digest";
+
+    /**
+     * A group of subscribers that share their subscription options, and the notifications that they received.
+     */
+    private static final class Group {
+
+        private final String name;
+
+        private final boolean deliver;
+
+        private final int digestFrequency;
+
+        private final List<XMPPConnection> subscribers;
+
+        private final AtomicLongArray stanzasPerSubscriber;
+
+        private final AtomicLong stanzas = new AtomicLong();
+
+        private final AtomicLong items = new AtomicLong();
+
+        private final AtomicLong duplicates = new AtomicLong();
+
+        // The IDs of the items that each subscriber was notified of. Each is only accessed by the listener thread of its
+        // subscriber.
+        private final List<Set<String>> notified = new ArrayList<>();
+
+        // The error condition with which the service rejected the subscription options of this group, if it did.
+        private volatile StanzaError.Condition rejected;
+
+        private final LatencyHistogram delay = new LatencyHistogram();
+
+        private final LatencyHistogram subscribe = new LatencyHistogram();
+
+        private final LatencyHistogram optionsRetrieval = new LatencyHistogram();
+
+        private Group(String name, boolean deliver, int digestFrequency, List<XMPPConnection> subscribers) {
+            this.name = name;
+            this.deliver = deliver;
+            this.digestFrequency = digestFrequency;
+            this.subscribers = subscribers;
+            this.stanzasPerSubscriber = new AtomicLongArray(subscribers.size());
+            for (int i = 0; i < subscribers.size(); i++) {
+                notified.add(new HashSet<>());
+            }
+        }
+    }
+
+    public PubSubDigestIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+        if (!capabilities.supports(PubSubFeature.subscription_options)) {
+            throw capabilities.notPossible(getClass().getSimpleName(), "Feature 'subscription-options' not supported on the server.");
+        }
+    }
+
+    /**
+     * Subscribes groups of subscribers with different subscription options to a node, publishes items at a fixed rate,
+     * and records the notification stanzas that every group received.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    @SmackIntegrationTest
+    public void digestTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Integer> digestFrequencies = PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "digestFrequencies", 0, 1000, 5000);
+        final boolean deliverOff = PubSubBenchmarkConfiguration.getBoolean(BENCHMARK, "deliverOff", true);
+        final boolean includeBody = PubSubBenchmarkConfiguration.getBoolean(BENCHMARK, "includeBody", false);
+        final int subscribersPerGroup = getIntSetting("subscribersPerGroup", 10);
+        final int publishRate = Math.max(1, getIntSetting("publishRate", 10));
+        final int durationSeconds = getIntSetting("durationSeconds", 20);
+        final int window = getIntSetting("window", 16);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+        final int maxMissed = getIntSetting("slo.maxMissed", 0);
+
+        final int groupCount = digestFrequencies.size() + (deliverOff ? 1 : 0);
+        // The first connection of the pool is the publisher. All others are subscribers.
+        final List<XMPPConnection> connections = getConnections(groupCount * subscribersPerGroup + 1);
+        final List<Group> groups = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            final List<XMPPConnection> subscribers = connections.subList(1 + g * subscribersPerGroup, 1 + (g + 1) * subscribersPerGroup);
+            if (g < digestFrequencies.size()) {
+                final int frequency = digestFrequencies.get(g);
+                groups.add(new Group(frequency > 0 ? "digest" + frequency + "ms" : "immediate", true, frequency, subscribers));
+            } else {
+                groups.add(new Group("deliverOff", false, 0, subscribers));
+            }
+        }
+
+        final String nodename = nodename("node");
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        final int itemCount = publishRate * durationSeconds;
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / publishRate;
+        final Map<String, Long> publishTimes = new ConcurrentHashMap<>();
+        final List<ScopedStanzaListener> listeners = new ArrayList<>();
+        final ExecutorService executor = PubSubActors.newExecutor(subscribeConcurrency);
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            final LeafNode node = fixture.createNode(nodename);
+
+            final List<Future<Subscription>> subscriptions = new ArrayList<>();
+            for (Group group : groups) {
+                // Subscription options forms are the same for every subscriber, so the form is only retrieved once. Only
+                // subscribers can retrieve it (XEP-0060 § 6.3.4.2), so the first subscriber subscribes without options
+                // for as long as that takes.
+                final XMPPConnection first = group.subscribers.get(0);
+                final Node firstNode = getPubSubManager(first).getNode(nodename);
+                final SubscribeForm options;
+                try {
+                    final Subscription plain = firstNode.subscribe(first.getUser().asEntityBareJid());
+                    final long optionsStart = System.nanoTime();
+                    options = firstNode.getSubscriptionOptions(first.getUser().asEntityBareJidString(), plain.getId());
+                    group.optionsRetrieval.recordNanos(System.nanoTime() - optionsStart);
+                    firstNode.unsubscribe(first.getUser().asEntityBareJidString(), plain.getId());
+                } catch (XMPPErrorException e) {
+                    LOGGER.log(Level.INFO, "Subscription options of group '" + group.name + "' could not be retrieved from " + pubSubService + ".", e);
+                    group.rejected = e.getStanzaError().getCondition();
+                    continue;
+                }
+
+                for (int s = 0; s < group.subscribers.size(); s++) {
+                    final XMPPConnection subscriber = group.subscribers.get(s);
+                    final int subscriberIndex = s;
+                    listeners.add(ScopedStanzaListener.sync(subscriber, stanza -> onNotification(stanza, group, subscriberIndex, publishTimes), PubSubEventFilter.forNode(nodename)));
+                    final FillableSubscribeForm form = options.getFillableForm();
+                    form.setDeliverOn(group.deliver);
+                    form.setDigestOn(group.digestFrequency > 0);
+                    if (group.digestFrequency > 0) {
+                        form.setDigestFrequency(group.digestFrequency);
+                    }
+                    form.setIncludeBody(includeBody);
+                    subscriptions.add(executor.submit(() -> {
+                        final Node subscriberNode = getPubSubManager(subscriber).getNode(nodename);
+                        final long start = System.nanoTime();
+                        final Subscription subscription;
+                        try {
+                            subscription = subscriberNode.subscribe(subscriber.getUser().asEntityBareJid(), form);
+                        } catch (XMPPErrorException e) {
+                            if (group.rejected == null) {
+                                LOGGER.log(Level.INFO, "Subscription options of group '" + group.name + "' are not supported by " + pubSubService + ".", e);
+                            }
+                            group.rejected = e.getStanzaError().getCondition();
+                            return null;
+                        }
+                        group.subscribe.recordNanos(System.nanoTime() - start);
+                        return subscription;
+                    }));
+                }
+            }
+            for (Future<Subscription> subscription : subscriptions) {
+                subscription.get();
+            }
+
+            final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+            publisher.publishAtFixedRate(node, itemCount, intervalNanos, i -> {
+                final String itemId = "item" + i;
+                publishTimes.put(itemId, System.nanoTime());
+                return new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build());
+            });
+            publisher.awaitAnswers(deliveryTimeoutSeconds, TimeUnit.SECONDS);
+
+            // Digests are sent at the end of every digest period, so wait for at least one more period.
+            int maxFrequency = 0;
+            for (Group group : groups) {
+                if (group.rejected == null) {
+                    maxFrequency = Math.max(maxFrequency, group.digestFrequency);
+                }
+            }
+            PubSubActors.awaitCondition(() -> isComplete(groups, itemCount), TimeUnit.SECONDS.toMillis(deliveryTimeoutSeconds) + maxFrequency, TimeUnit.MILLISECONDS);
+            if (deliverOff) {
+                // Give notifications that should not be sent at all the time to arrive, too.
+                Thread.sleep(Math.max(1000, maxFrequency));
+            }
+
+            final BenchmarkReport report = newReport()
+                .put("digestFrequencies", digestFrequencies)
+                .put("includeBody", includeBody)
+                .put("subscribersPerGroup", subscribersPerGroup)
+                .put("publishRate", publishRate)
+                .put("durationSeconds", durationSeconds)
+                .put("publishedItems", itemCount)
+                .put("publishErrors", publisher.getFailed());
+            final List<Runnable> checks = new ArrayList<>();
+            for (Group group : groups) {
+                final String prefix = group.name;
+                if (group.rejected != null) {
+                    report.put(prefix + ".supported", false)
+                        .put(prefix + ".error", group.rejected);
+                    continue;
+                }
+                report.put(prefix + ".supported", true);
+                final double stanzasPerSubscriber = (double) group.stanzas.get() / group.subscribers.size();
+                long maxStanzasPerSubscriber = 0;
+                for (int s = 0; s < group.subscribers.size(); s++) {
+                    maxStanzasPerSubscriber = Math.max(maxStanzasPerSubscriber, group.stanzasPerSubscriber.get(s));
+                }
+                report.put(prefix + ".optionsRetrieval", group.optionsRetrieval)
+                    .put(prefix + ".subscribe", group.subscribe)
+                    .put(prefix + ".stanzas", group.stanzas.get())
+                    .put(prefix + ".stanzasPerSubscriber", stanzasPerSubscriber)
+                    .put(prefix + ".maxStanzasPerSubscriber", maxStanzasPerSubscriber);
+                if (!group.deliver) {
+                    report.put(prefix + ".unexpectedStanzas", group.stanzas.get());
+                    continue;
+                }
+                final long expected = (long) itemCount * group.subscribers.size();
+                final long missed = Math.max(0, expected - group.items.get());
+                report.put(prefix + ".items", group.items.get())
+                    .put(prefix + ".missedItems", missed)
+                    .put(prefix + ".duplicateItems", group.duplicates.get())
+                    .put(prefix + ".itemsPerStanza", group.stanzas.get() == 0 ? 0 : (double) group.items.get() / group.stanzas.get())
+                    .put(prefix + ".stanzaReduction", stanzasPerSubscriber == 0 ? 0 : itemCount / stanzasPerSubscriber)
+                    .put(prefix + ".delay", group.delay);
+                checks.add(() -> assertTrue(missed <= maxMissed, "Item notifications were missed by subscribers in group '" + group.name + "': " + missed + " of " + expected + " (tolerated: " + maxMissed + ")"));
+            }
+            report.publish();
+
+            for (Runnable check : checks) {
+                check.run();
+            }
+        } finally {
+            executor.shutdownNow();
+            listeners.forEach(ScopedStanzaListener::close);
+        }
+    }
+
+    /**
+     * Records a notification stanza, which may contain several event elements (as digests may), each with several
+     * items. Items that the subscriber was already notified of are counted as duplicates only.
+     */
+    private static void onNotification(Stanza stanza, Group group, int subscriberIndex, Map<String, Long> publishTimes) {
+        final long received = System.nanoTime();
+        group.stanzas.incrementAndGet();
+        group.stanzasPerSubscriber.incrementAndGet(subscriberIndex);
+        for (ExtensionElement extension : stanza.getExtensions(EventElement.QNAME)) {
+            final EventElement event = (EventElement) extension;
+            if (event.getEventType() != EventElementType.items) {
+                continue;
+            }
+            for (NamedElement element : ((ItemsExtension) event.getEvent()).getItems()) {
+                if (!(element instanceof Item)) {
+                    continue;
+                }
+                final String itemId = ((Item) element).getId();
+                final Long published = publishTimes.get(itemId);
+                if (published == null) {
+                    continue;
+                }
+                if (!group.notified.get(subscriberIndex).add(itemId)) {
+                    group.duplicates.incrementAndGet();
+                    continue;
+                }
+                group.delay.recordNanos(received - published);
+                group.items.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean isComplete(List<Group> groups, int itemCount) {
+        for (Group group : groups) {
+            if (group.deliver && group.rejected == null && group.items.get() < (long) itemCount * group.subscribers.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.function.Predicate;
+
+import org.jivesoftware.smack.filter.StanzaFilter;
+import org.jivesoftware.smack.packet.NamedElement;
+import org.jivesoftware.smack.packet.Stanza;
+
+/**
+ * Filters stanzas that carry a PubSub event notification (an <code>event</code> element qualified by the
+ * <code>http://jabber.org/protocol/pubsub#event</code> namespace), optionally restricted by event type, node and items.
+ *
+ * <p>Matching operates on the extension elements that Smack already parsed when the stanza was received. Unlike
+ * matching on the XML representation of a stanza, this does not serialize the stanza, and does not allocate.</p>
+ */
+public final class PubSubEventFilter implements StanzaFilter {
+
+    /**
+     * A filter that accepts every PubSub event notification.
+     */
+    public static final PubSubEventFilter ANY = new PubSubEventFilter(null, null, null);
+
+    private final EventElementType eventType;
+
+    private final String nodeId;
+
+    private final Predicate<? super Item> itemPredicate;
+
+    private PubSubEventFilter(EventElementType eventType, String nodeId, Predicate<? super Item> itemPredicate) {
+        this.eventType = eventType;
+        this.nodeId = nodeId;
+        this.itemPredicate = itemPredicate;
+    }
+
+    /**
+     * Creates a filter that accepts every event notification that relates to a particular node.
+     *
+     * @param nodeId the ID of the node.
+     * @return a filter.
+     */
+    public static PubSubEventFilter forNode(String nodeId) {
+        return new PubSubEventFilter(null, nodeId, null);
+    }
+
+    /**
+     * Creates a filter that accepts notifications of published items for a particular node.
+     *
+     * @param nodeId the ID of the node.
+     * @return a filter.
+     */
+    public static PubSubEventFilter items(String nodeId) {
+        return new PubSubEventFilter(EventElementType.items, nodeId, null);
+    }
+
+    /**
+     * Creates a filter that accepts notifications of a particular item being published to a particular node.
+     *
+     * @param nodeId the ID of the node.
+     * @param itemId the ID of the item.
+     * @return a filter.
+     */
+    public static PubSubEventFilter item(String nodeId, String itemId) {
+        return items(nodeId).withItem(PubSubItemPredicates.hasId(itemId));
+    }
+
+    /**
+     * Creates a filter that accepts notifications of the deletion of a particular node.
+     *
+     * @param nodeId the ID of the node.
+     * @return a filter.
+     */
+    public static PubSubEventFilter deletion(String nodeId) {
+        return new PubSubEventFilter(EventElementType.delete, nodeId, null);
+    }
+
+    /**
+     * Returns a filter that accepts the same notifications as this filter, provided that they contain at least one
+     * item that matches the predicate.
+     *
+     * @param predicate the predicate that must match at least one item of the notification.
+     * @return a filter.
+     */
+    public PubSubEventFilter withItem(Predicate<? super Item> predicate) {
+        return new PubSubEventFilter(eventType, nodeId, predicate);
+    }
+
+    @Override
+    public boolean accept(Stanza stanza) {
+        final EventElement event = EventElement.from(stanza);
+        if (event == null) {
+            return false;
+        }
+        if (eventType != null && event.getEventType() != eventType) {
+            return false;
+        }
+        final NodeExtension nodeExtension = event.getEvent();
+        if (nodeId != null && (nodeExtension == null || !nodeId.equals(nodeExtension.getNode()))) {
+            return false;
+        }
+        if (itemPredicate == null) {
+            return true;
+        }
+        if (!(nodeExtension instanceof ItemsExtension)) {
+            return false;
+        }
+        for (NamedElement element : ((ItemsExtension) nodeExtension).getItems()) {
+            if (element instanceof Item && itemPredicate.test((Item) element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": type=" + eventType + " node=" + nodeId + " itemPredicate=" + itemPredicate;
+    }
+}
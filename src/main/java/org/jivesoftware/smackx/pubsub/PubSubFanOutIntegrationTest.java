@@ -0,0 +1,182 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures how the notification throughput of a single node scales with the number of its subscribers, when items are
+ * published at a fixed rate.
+ *
+ * <p>Where {@link PubSubNotificationLatencyIntegrationTest} publishes a fixed number of items and looks at latency,
+ * this benchmark offers a constant load (the publish rate times the number of subscribers) and reports, for every
+ * number of subscribers, the rate at which notifications were actually delivered, the fraction of notifications that
+ * arrived (completeness), the notification latency, the lag of the slowest subscribers, and the number of subscribers
+ * that received no notification at all, which are left out of the lag. Together, the steps form a throughput/latency
+ * curve. The first step in which notifications are lost, or in which the delivered rate falls below
+ * <code>saturationRatio</code> of the offered rate, is reported as the point at which fan-out stops scaling.</p>
+ *
+ * <p>Subscribers are taken from the {@link PubSubConnectionPool}, which creates their accounts through the same
+ * mechanism as the regular test accounts. The connections are of the type that is configured for the test run. To
+ * simulate large numbers of subscribers from a single machine, configure a connection type of which the connections
+ * share their I/O threads, such as Smack's modular connection.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>fanOut</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.fanOut.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscriberCounts</code> - comma-separated numbers of subscribers, one step per number
+ *     (default 10,100,1000,5000)</li>
+ *     <li><code>publishRate</code> - number of items published per second (default 10)</li>
+ *     <li><code>durationSeconds</code> - duration of the publishing phase of each step (default 20)</li>
+ *     <li><code>window</code> - maximum number of publish requests in flight (default 16)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for outstanding notifications after the last item was
+ *     published (default 30)</li>
+ *     <li><code>saturationRatio</code> - fraction of the offered notification rate below which fan-out is considered
+ *     saturated (default 0.9)</li>
+ *     <li><code>slo.minSubscribers</code> - number of subscribers up to which fan-out must not be saturated
+ *     (default: not checked)</li>
+ * </ul>
+ */
+public class PubSubFanOutIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "fanOut";
+
+    public PubSubFanOutIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Publishes items at a fixed rate to a node with an increasing number of subscribers, and records the delivered
+     * notification rate, completeness, latency and subscriber lag for each number of subscribers.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    @SmackIntegrationTest
+    public void fanOutScalingTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Integer> subscriberCounts = PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "subscriberCounts", 10, 100, 1000, 5000);
+        final int publishRate = Math.max(1, getIntSetting("publishRate", 10));
+        final int durationSeconds = getIntSetting("durationSeconds", 20);
+        final int window = getIntSetting("window", 16);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+        final double saturationRatio = getDoubleSetting("saturationRatio", 0.9);
+        final int minSubscribers = getIntSetting("slo.minSubscribers", 0);
+
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        final int itemsPerStep = publishRate * durationSeconds;
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / publishRate;
+        final BenchmarkReport report = newReport()
+            .put("subscriberCounts", subscriberCounts)
+            .put("publishRate", publishRate)
+            .put("durationSeconds", durationSeconds)
+            .put("window", window);
+
+        final List<String> curve = new ArrayList<>();
+        int saturatedAt = 0;
+        for (int subscriberCount : subscriberCounts) {
+            // The first connection of the pool is the publisher. All others are subscribers.
+            final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+            final String nodename = nodename("subscribers" + subscriberCount);
+            try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne);
+                 PubSubSubscriberGroup group = new PubSubSubscriberGroup(subscribers, pubSubService, nodename)) {
+                final LeafNode node = fixture.createNode(nodename);
+                group.subscribe(subscribeConcurrency);
+
+                final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+                final long start = System.nanoTime();
+                publisher.publishAtFixedRate(node, itemsPerStep, intervalNanos, i -> {
+                    final String itemId = "item" + i;
+                    group.published(itemId);
+                    return new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build());
+                });
+                final double actualPublishRate = itemsPerStep / ((System.nanoTime() - start) / 1_000_000_000d);
+                publisher.awaitAnswers(deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                group.awaitDeliveries(itemsPerStep, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                final double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+                final long expected = (long) itemsPerStep * subscriberCount;
+                final long delivered = group.getTotalDeliveries();
+                final double completeness = (double) delivered / expected;
+                final double offeredRate = (double) publishRate * subscriberCount;
+                final double deliveredRate = delivered / elapsedSeconds;
+
+                // Subscribers that received nothing have no lag to speak of, and would pull the histogram down.
+                final LatencyHistogram lag = new LatencyHistogram();
+                long subscribersWithoutNotifications = 0;
+                for (long maxLatency : group.getMaxLatencyNanosPerSubscriber()) {
+                    if (maxLatency == 0) {
+                        subscribersWithoutNotifications++;
+                    } else {
+                        lag.recordNanos(maxLatency);
+                    }
+                }
+
+                final String prefix = "subscribers." + subscriberCount;
+                report.put(prefix + ".publishRate", actualPublishRate)
+                    .put(prefix + ".publishErrors", publisher.getFailed())
+                    .put(prefix + ".offeredNotificationsPerSecond", offeredRate)
+                    .put(prefix + ".deliveredNotificationsPerSecond", deliveredRate)
+                    .put(prefix + ".completeness", completeness)
+                    .put(prefix + ".latency", group.getLatencies())
+                    .put(prefix + ".subscriberLag", lag)
+                    .put(prefix + ".subscribersWithoutNotifications", subscribersWithoutNotifications);
+                curve.add(String.format(Locale.ROOT, "%d:%.1f:%.3f", subscriberCount, deliveredRate, group.getLatencies().getMillisAtPercentile(99)));
+
+                if (saturatedAt == 0 && (delivered < expected || deliveredRate < saturationRatio * offeredRate)) {
+                    saturatedAt = subscriberCount;
+                }
+            }
+        }
+        // Every point of the curve is: number of subscribers, delivered notifications per second, p99 latency (ms).
+        report.put("curve", curve);
+        report.put("saturatedAtSubscribers", saturatedAt);
+        report.publish();
+
+        if (minSubscribers > 0) {
+            assertTrue(saturatedAt == 0 || saturatedAt > minSubscribers, "Fan-out saturated at " + saturatedAt + " subscribers (objective: no saturation up to " + minSubscribers + ").");
+        }
+    }
+}
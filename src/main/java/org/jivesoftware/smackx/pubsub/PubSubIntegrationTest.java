@@ -29,11 +29,13 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 
 import org.jivesoftware.smack.SmackConfiguration;
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.SmackException.NoResponseException;
 import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
 import org.jivesoftware.smack.XMPPException.XMPPErrorException;
 import org.jivesoftware.smack.packet.IQ;
 import org.jivesoftware.smack.packet.StandardExtensionElement;
@@ -41,7 +43,6 @@ import org.jivesoftware.smack.packet.Stanza;
 import org.jivesoftware.smack.packet.StanzaError;
 import org.jivesoftware.smack.packet.XmlEnvironment;
 import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
-import org.jivesoftware.smackx.pubsub.form.ConfigureForm;
 import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
 import org.jivesoftware.smackx.pubsub.form.FillableSubscribeForm;
 import org.jivesoftware.smackx.pubsub.packet.PubSub;
@@ -57,22 +58,68 @@ import org.jxmpp.stringprep.XmppStringprepException;
 
 public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
 
+    // These fields hide the fields of the same name of the superclass. This allows the tests in this class to be
+    // executed with connections and a test run ID other than those of the environment, which is what
+    // PubSubParallelIntegrationTest uses to run them concurrently.
+    private final XMPPConnection conOne;
+    private final XMPPConnection conTwo;
+    private final XMPPConnection conThree;
+    private final String testRunId;
+
     private final PubSubManager pubSubManagerOne;
     private final PubSubManager pubSubManagerTwo;
 
+    private final PubSubServiceCapabilities capabilities;
+
     public PubSubIntegrationTest(SmackIntegrationTestEnvironment environment)
             throws TestNotPossibleException, SmackException.NoResponseException, XMPPErrorException,
             NotConnectedException, InterruptedException {
+        this(requireStandalone(environment), environment.conOne, environment.conTwo, environment.conThree, environment.testRunId);
+    }
+
+    PubSubIntegrationTest(SmackIntegrationTestEnvironment environment, XMPPConnection conOne, XMPPConnection conTwo,
+            XMPPConnection conThree, String testRunId) throws TestNotPossibleException,
+            SmackException.NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
         super(environment);
-        DomainBareJid pubSubService = PubSubManager.getPubSubService(conOne);
-        if (pubSubService == null) {
-            throw new TestNotPossibleException("No PubSub service found");
-        }
+        this.conOne = conOne;
+        this.conTwo = conTwo;
+        this.conThree = conThree;
+        this.testRunId = testRunId;
+        IqMetrics.instrumentIfEnabled(testRunId, conOne, conTwo, conThree);
+        capabilities = PubSubServiceCapabilities.getInstanceFor(environment.conOne, environment.testRunId);
+        final DomainBareJid pubSubService = capabilities.requireNodeCreation(PubSubIntegrationTest.class.getSimpleName());
         pubSubManagerOne = PubSubManager.getInstanceFor(conOne, pubSubService);
-        if (!pubSubManagerOne.canCreateNodesAndPublishItems()) {
-            throw new TestNotPossibleException("PubSub service does not allow node creation");
-        }
         pubSubManagerTwo = PubSubManager.getInstanceFor(conTwo, pubSubService);
+        // Runs that use the accounts of the environment leave their nodes behind under the environment's first account.
+        PubSubNodeFixture.deleteLeftoverNodes(PubSubManager.getInstanceFor(environment.conOne, pubSubService), environment.testRunId);
+        try {
+            // Retrieve the default node configuration once, instead of in every test that uses it.
+            PubSubDefaultConfigurationCache.getDefaultConfiguration(pubSubManagerOne);
+        } catch (XMPPErrorException e) {
+            LOGGER.log(Level.FINE, "PubSub service did not provide its default node configuration.", e);
+        }
+    }
+
+    /**
+     * Checks that the tests of this class are not executed by one of the modes that execute them in their own way, in
+     * which case the framework should skip them. This is invoked before any request is sent to the service, so that
+     * a skipped instance does not cost any round-trips.
+     *
+     * @param environment the environment of the test run.
+     * @return the provided environment.
+     * @throws TestNotPossibleException if the tests are executed by another mode.
+     */
+    private static SmackIntegrationTestEnvironment requireStandalone(SmackIntegrationTestEnvironment environment) throws TestNotPossibleException {
+        if (PubSubParallelIntegrationTest.isEnabled()) {
+            throw new TestNotPossibleException("PubSub tests are executed concurrently by " + PubSubParallelIntegrationTest.class.getSimpleName() + ".");
+        }
+        if (PubSubProfileIntegrationTest.isEnabled()) {
+            throw new TestNotPossibleException("PubSub tests are executed and profiled by " + PubSubProfileIntegrationTest.class.getSimpleName() + ".");
+        }
+        if (PubSubSoakIntegrationTest.isEnabled()) {
+            throw new TestNotPossibleException("PubSub tests are executed repeatedly by " + PubSubSoakIntegrationTest.class.getSimpleName() + ".");
+        }
+        return environment;
     }
 
     /**
@@ -94,7 +141,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
 
             // Retrieve items and assert that the item that was just published is among them.
             final List<Item> items = node.getItems();
-            assertTrue(items.stream().anyMatch(stanza -> stanza.toXML().toString().contains(needle)));
+            assertTrue(items.stream().anyMatch(PubSubItemPredicates.hasGeoLocationDescription(needle)));
         } finally {
             pubSubManagerOne.deleteNode(nodename);
         }
@@ -193,8 +240,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void subscribePresenceSubscriptionRequiredTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         final String nodename = "sinttest-subscribe-nodename-" + testRunId;
-        final ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        final FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setAccessModel(AccessModel.presence);
         try {
             pubSubManagerOne.createNode(nodename, config);
@@ -235,8 +281,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void subscribeNotInRosterGroupTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         final String nodename = "sinttest-subscribe-nodename-" + testRunId;
-        final ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        final FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setAccessModel(AccessModel.roster);
         try {
             pubSubManagerOne.createNode(nodename, config);
@@ -278,8 +323,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void subscribeNotOnWhitelistTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         final String nodename = "sinttest-subscribe-nodename-" + testRunId;
-        final ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        final FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setAccessModel(AccessModel.whitelist);
         try {
             pubSubManagerOne.createNode(nodename, config);
@@ -321,8 +365,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void subscribePendingSubscriptionTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         final String nodename = "sinttest-subscribe-nodename-" + testRunId;
-        final ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        final FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setAccessModel(AccessModel.authorize);
         try {
             pubSubManagerOne.createNode(nodename, config);
@@ -364,8 +407,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void subscribeApprovalRequiredGeneratesNotificationTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         final String nodename = "sinttest-subscribe-nodename-" + testRunId;
-        final ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        final FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setAccessModel(AccessModel.authorize);
         try {
             pubSubManagerOne.createNode(nodename, config);
@@ -406,8 +448,8 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
      */
     @SmackIntegrationTest
     public void subscribeMultipleSubscriptionsTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
-        if (!pubSubManagerOne.getSupportedFeatures().containsFeature(PubSubFeature.multi_subscribe)) {
-            throw new TestNotPossibleException("Feature 'multi-subscribe' not supported on the server.");
+        if (!capabilities.supports(PubSubFeature.multi_subscribe)) {
+            throw capabilities.notPossible("subscribeMultipleSubscriptionsTest", "Feature 'multi-subscribe' not supported on the server.");
         }
 
         final String nodename = "sinttest-multisubscribe-nodename-" + testRunId;
@@ -450,8 +492,8 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
      */
     @SmackIntegrationTest
     public void subscribeMultipleSubscriptionNotSupportedTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
-        if (pubSubManagerOne.getSupportedFeatures().containsFeature(PubSubFeature.multi_subscribe)) {
-            throw new TestNotPossibleException("Feature 'multi-subscribe' allowed on the server (this test verifies behavior for when it's not).");
+        if (capabilities.supports(PubSubFeature.multi_subscribe)) {
+            throw capabilities.notPossible("subscribeMultipleSubscriptionNotSupportedTest", "Feature 'multi-subscribe' allowed on the server (this test verifies behavior for when it's not).");
         }
 
         final String nodename = "sinttest-multisubscribe-nodename-" + testRunId;
@@ -539,8 +581,8 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
      */
     @SmackIntegrationTest
     public void unsubscribeNoSubscriptionIDTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
-        if (!pubSubManagerOne.getSupportedFeatures().containsFeature(PubSubFeature.multi_subscribe)) {
-            throw new TestNotPossibleException("Feature 'multi-subscribe' not supported on the server.");
+        if (!capabilities.supports(PubSubFeature.multi_subscribe)) {
+            throw capabilities.notPossible("unsubscribeNoSubscriptionIDTest", "Feature 'multi-subscribe' not supported on the server.");
         }
 
         final String nodename = "sinttest-unsubscribeNoSub-nodename-" + testRunId;
@@ -623,7 +665,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void unsubscribeInsufficientPrivilegesTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException {
         final String nodename = "sinttest-unsubscribeInsufficient-nodename-" + testRunId;
-        final PubSubManager pubSubManagerThree = PubSubManager.getInstanceFor(conThree, PubSubManager.getPubSubService(conThree));
+        final PubSubManager pubSubManagerThree = PubSubManager.getInstanceFor(conThree, capabilities.getPubSubService());
         pubSubManagerOne.createNode(nodename);
 
         try {
@@ -699,8 +741,8 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void unsubscribeBadSubscriptionIDTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException, TestNotPossibleException {
         // Depending on multi-subscribe is a fail-safe way to be sure that subscription IDs will exist.
-        if (!pubSubManagerOne.getSupportedFeatures().containsFeature(PubSubFeature.multi_subscribe)) {
-            throw new TestNotPossibleException("Feature 'multi-subscribe' not supported on the server.");
+        if (!capabilities.supports(PubSubFeature.multi_subscribe)) {
+            throw capabilities.notPossible("unsubscribeBadSubscriptionIDTest", "Feature 'multi-subscribe' not supported on the server.");
         }
 
         final String nodename = "sinttest-unsubscribeBad-nodename-" + testRunId;
@@ -772,6 +814,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     public void receivePublishedItemTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException, ExecutionException, PubSubException {
         final String nodename = "sinttest-receive-published-item-nodename-" + testRunId;
         final String needle = "test content " + Math.random();
+        final String itemId = "sinttest-receive-published-item-" + Math.random();
         LeafNode publisherNode = pubSubManagerOne.createNode(nodename);
         try {
             final Node subscriberNode = pubSubManagerTwo.getNode(nodename);
@@ -779,11 +822,11 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
             subscriberNode.subscribe(subscriber);
 
             final CompletableFuture<Stanza> result = new CompletableFuture<>();
-            conTwo.addAsyncStanzaListener(result::complete, stanza -> stanza.toXML().toString().contains(needle));
+            try (ScopedStanzaListener listener = ScopedStanzaListener.completing(conTwo, result, PubSubEventFilter.item(nodename, itemId))) {
+                publisherNode.publish(new PayloadItem<>(itemId, GeoLocation.builder().setDescription(needle).build()));
 
-            publisherNode.publish(new PayloadItem<>(GeoLocation.builder().setDescription(needle).build()));
-
-            assertNotNull(result.get(conOne.getReplyTimeout(), TimeUnit.MILLISECONDS));
+                assertNotNull(result.get(conOne.getReplyTimeout(), TimeUnit.MILLISECONDS));
+            }
         } catch (TimeoutException e) {
             throw new AssertionError("The published item was not received by the subscriber.", e);
         } finally {
@@ -803,8 +846,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     @SmackIntegrationTest
     public void transientNotificationOnlyNodeWithoutItemTest() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
         final String nodename = "sinttest-transient-notificationonly-withoutitem-nodename-" + testRunId;
-        ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         // Configure the node as "Notification-Only Node".
         config.setDeliverPayloads(false);
         // Configure the node as "transient" (set persistent_items to 'false')
@@ -841,8 +883,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
         final String nodename = "sinttest-transient-notificationonly-withitem-nodename-" + testRunId;
         final String itemId = "sinttest-transient-notificationonly-withitem-itemid-" + testRunId;
 
-        ConfigureForm defaultConfiguration = pubSubManagerOne.getDefaultConfiguration();
-        FillableConfigureForm config = defaultConfiguration.getFillableForm();
+        FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         // Configure the node as "Notification-Only Node".
         config.setDeliverPayloads(false);
         // Configure the node as "transient" (set persistent_items to 'false')
@@ -917,19 +958,18 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
     public void deleteNodeAndNotifySubscribersTest() throws NoResponseException, ExecutionException,
             NotConnectedException, InterruptedException, PubSubException.NotAPubSubNodeException {
         final String nodename = "sinttest-delete-node-that-exist-" + testRunId;
-        final String needle = "<event xmlns='http://jabber.org/protocol/pubsub#event'>";
         try {
             @SuppressWarnings("unused") LeafNode node = pubSubManagerOne.createNode(nodename);
             final Node subscriberNode = pubSubManagerTwo.getNode(nodename);
             final EntityBareJid subscriber = conTwo.getUser().asEntityBareJid();
             subscriberNode.subscribe(subscriber);
             final CompletableFuture<Stanza> result = new CompletableFuture<>();
-            conTwo.addAsyncStanzaListener(result::complete, stanza -> stanza.toXML().toString().contains(needle));
+            try (ScopedStanzaListener listener = ScopedStanzaListener.completing(conTwo, result, PubSubEventFilter.deletion(nodename))) {
+                // Delete an existent node
+                pubSubManagerOne.deleteNode(nodename);
 
-            // Delete an existent node
-            pubSubManagerOne.deleteNode(nodename);
-
-            assertNotNull(result.get(conOne.getReplyTimeout(), TimeUnit.MILLISECONDS));
+                assertNotNull(result.get(conOne.getReplyTimeout(), TimeUnit.MILLISECONDS));
+            }
         } catch (XMPPErrorException e) {
             assertEquals(StanzaError.Condition.item_not_found, e.getStanzaError().getCondition());
         } catch (TimeoutException e) {
@@ -958,7 +998,7 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
         final String needleA = "test content A" + Math.random();
         final String needleB = "test content B" + Math.random();
 
-        final FillableConfigureForm config = pubSubManagerOne.getDefaultConfiguration().getFillableForm();
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
         config.setPersistentItems(true);
         config.setMaxItems(2);
 
@@ -973,8 +1013,8 @@ public class PubSubIntegrationTest extends AbstractSmackIntegrationTest {
             assertEquals(1, items.size());
             final Item item = items.iterator().next();
             assertEquals(itemId, item.getId());
-            assertFalse(item.toXML().toString().contains(needleA));
-            assertTrue(item.toXML().toString().contains(needleB));
+            assertFalse(PubSubItemPredicates.hasGeoLocationDescription(needleA).test(item));
+            assertTrue(PubSubItemPredicates.hasGeoLocationDescription(needleB).test(item));
         } finally {
             pubSubManagerOne.deleteNode(nodename);
         }
@@ -0,0 +1,211 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.SmackFuture;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smack.packet.NamedElement;
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+import org.jivesoftware.smackx.rsm.packet.RSMSet;
+
+import org.jxmpp.jid.BareJid;
+
+/**
+ * Walks through the items of a node page by page, handing every item to a consumer, rather than retrieving all items
+ * in one response as {@link LeafNode#getItems()} does.
+ *
+ * <p>Pages are requested using Result Set Management (XEP-0059). Only the page that is being consumed and, when
+ * prefetching is enabled, the page after it are held in memory, so that the heap needed to walk a node does not grow
+ * with the number of items in it. Smack parses a response as a whole, which is why memory is bounded per page, rather
+ * than per item. With prefetching, the next page is requested as soon as a page arrives, so that retrieving it
+ * overlaps with the consumption of the current page.</p>
+ *
+ * <p>A service that does not support paging ignores the request and returns all items at once. These items are all
+ * still passed to the consumer, but {@link #isPagingSupported()} will return false afterwards. A service that does
+ * return a result set, but that ignores the <code>&lt;after/&gt;</code> of a request, would return the same page over
+ * and over again. The walk is aborted as soon as the last item of a page is one that ended an earlier page.</p>
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class PubSubItemPager {
+
+    private final XMPPConnection connection;
+
+    private final BareJid pubSubService;
+
+    private final String nodeId;
+
+    private final int pageSize;
+
+    private long replyTimeoutMillis;
+
+    private boolean prefetch = true;
+
+    private final LatencyHistogram pageLatencies = new LatencyHistogram();
+
+    private long pages;
+
+    private boolean pagingSupported = true;
+
+    /**
+     * Creates a pager for a node.
+     *
+     * @param node the node of which to walk the items.
+     * @param pageSize the maximum number of items per page.
+     */
+    public PubSubItemPager(LeafNode node, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be at least 1, but was " + pageSize);
+        }
+        this.connection = node.pubSubManager.getConnection();
+        this.pubSubService = node.pubSubManager.getServiceJid();
+        this.nodeId = node.getId();
+        this.pageSize = pageSize;
+        this.replyTimeoutMillis = connection.getReplyTimeout();
+    }
+
+    /**
+     * Sets the time to wait for each page. Defaults to the reply timeout of the connection.
+     *
+     * @param replyTimeoutMillis the timeout in milliseconds.
+     * @return this pager.
+     */
+    public PubSubItemPager setReplyTimeout(long replyTimeoutMillis) {
+        this.replyTimeoutMillis = replyTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets whether the next page is requested before the items of the current page are consumed. Enabled by default.
+     *
+     * @param prefetch true to request pages ahead.
+     * @return this pager.
+     */
+    public PubSubItemPager setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    /**
+     * Passes every item of the node to a consumer, in the order in which the service returns them.
+     *
+     * @param consumer the consumer of the items.
+     * @return the number of items that were passed to the consumer.
+     * @throws NoResponseException if a page was not received in time.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws IllegalStateException if the service returned a page that ends with the same item as an earlier page,
+     * which means that it does not advance through the items.
+     */
+    public long forEach(Consumer<? super Item> consumer) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        long count = 0;
+        // The identifiers that ended the pages so far. Their number is that of the pages, rather than of the items.
+        final Set<String> lasts = new HashSet<>();
+        PageRequest pending = new PageRequest(null);
+        while (pending != null) {
+            final PubSub response = pending.await();
+            pages++;
+
+            final ItemsExtension items = response.getExtension(PubSubElementType.ITEMS);
+            final List<? extends NamedElement> page = items == null ? Collections.emptyList() : items.getItems();
+            final RSMSet set = RSMSet.from(response);
+            if (set == null) {
+                pagingSupported = false;
+            }
+            final String last = set != null && !page.isEmpty() ? set.getLast() : null;
+            if (last != null && !lasts.add(last)) {
+                throw new IllegalStateException("PubSub service " + pubSubService + " returned a page of node '" + nodeId
+                    + "' that ends with item '" + last + "' again, after " + pages + " pages: it does not advance through the items.");
+            }
+
+            pending = last != null && prefetch ? new PageRequest(last) : null;
+            for (NamedElement element : page) {
+                if (element instanceof Item) {
+                    consumer.accept((Item) element);
+                    count++;
+                }
+            }
+            if (last != null && !prefetch) {
+                pending = new PageRequest(last);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of pages that were received, over all walks made with this pager.
+     *
+     * @return the number of pages.
+     */
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * Returns the time between requesting a page and receiving it, for all pages received by this pager.
+     *
+     * @return the page latencies.
+     */
+    public LatencyHistogram getPageLatencies() {
+        return pageLatencies;
+    }
+
+    /**
+     * Checks if the service returned items page by page. This is only meaningful after a walk.
+     *
+     * @return false if the service ignored a paging request.
+     */
+    public boolean isPagingSupported() {
+        return pagingSupported;
+    }
+
+    private final class PageRequest {
+
+        private final long sentNanos = System.nanoTime();
+
+        private final SmackFuture<IQ, Exception> response;
+
+        private PageRequest(String after) {
+            final PubSub request = PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new GetItemsRequest(nodeId));
+            request.addExtension(after == null ? new RSMSet(pageSize) : new RSMSet(pageSize, after, RSMSet.PageDirection.after));
+            response = connection.sendIqRequestAsync(request, replyTimeoutMillis);
+            // Record when the page arrives, rather than when it is consumed, which may be later when prefetching.
+            response.onSuccess(iq -> pageLatencies.recordNanos(System.nanoTime() - sentNanos));
+        }
+
+        private PubSub await() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+            try {
+                return (PubSub) response.getOrThrow();
+            } catch (NoResponseException | XMPPErrorException | NotConnectedException | InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
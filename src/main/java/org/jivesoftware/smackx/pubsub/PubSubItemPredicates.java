@@ -0,0 +1,69 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.function.Predicate;
+
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+
+/**
+ * Predicates that match PubSub items on their parsed representation, for use with {@link PubSubEventFilter} and with
+ * the items returned by {@link LeafNode#getItems()}.
+ */
+public final class PubSubItemPredicates {
+
+    private PubSubItemPredicates() {
+    }
+
+    /**
+     * Matches items with a particular item ID.
+     *
+     * @param itemId the ID of the item.
+     * @return a predicate.
+     */
+    public static Predicate<Item> hasId(String itemId) {
+        return item -> itemId.equals(item.getId());
+    }
+
+    /**
+     * Matches items that have a payload of a particular type.
+     *
+     * @param payloadType the class of the payload.
+     * @param payloadPredicate the predicate that the payload must match.
+     * @param <P> the type of the payload.
+     * @return a predicate.
+     */
+    public static <P> Predicate<Item> hasPayload(Class<P> payloadType, Predicate<? super P> payloadPredicate) {
+        return item -> {
+            if (!(item instanceof PayloadItem)) {
+                return false;
+            }
+            final Object payload = ((PayloadItem<?>) item).getPayload();
+            return payloadType.isInstance(payload) && payloadPredicate.test(payloadType.cast(payload));
+        };
+    }
+
+    /**
+     * Matches items that have a User Location (XEP-0080) payload with a particular description.
+     *
+     * @param description the description of the location.
+     * @return a predicate.
+     */
+    public static Predicate<Item> hasGeoLocationDescription(String description) {
+        return hasPayload(GeoLocation.class, geoLocation -> description.equals(geoLocation.getDescription()));
+    }
+}
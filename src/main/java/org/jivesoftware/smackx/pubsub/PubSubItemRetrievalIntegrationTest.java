@@ -0,0 +1,298 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.StanzaCollector;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+import org.jivesoftware.smackx.rsm.packet.RSMSet;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures the retrieval of items from nodes that hold large numbers of persisted items.
+ *
+ * <p>For every configured number of items, a persistent node is created and filled. Items are then retrieved from it
+ * in four ways: all items at once (as {@link LeafNode#getItems()} does), the most recent items only (using the
+ * <code>max_items</code> attribute), page by page (using Result Set Management, XEP-0059), and a few items by ID. For
+ * each of these, the report contains the latency of the requests, the number of requests that timed out, the number of
+ * bytes received (measured as the size of the re-serialised response) and the amount of client heap that was needed
+ * to hold a parsed response. Walks page by page are aborted, and counted as stalls, when the service does not advance
+ * through the items. Finally, the items are walked with a {@link PubSubItemPager}, which requests the next page while
+ * the current one is consumed, and of which the page latency and the duration of a full walk are reported.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>itemRetrieval</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.itemRetrieval.*</code> properties:</p>
+ * <ul>
+ *     <li><code>itemCounts</code> - comma-separated numbers of items, one node per number (default 10000)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 256)</li>
+ *     <li><code>fillWindow</code> - maximum number of publish requests in flight while filling a node (default 64)</li>
+ *     <li><code>maxItems</code> - value of <code>max_items</code> when retrieving the most recent items (default 100)</li>
+ *     <li><code>pageSize</code> - number of items per page when paging (default 100)</li>
+ *     <li><code>idsPerRequest</code> - number of items to retrieve when retrieving items by ID (default 10)</li>
+ *     <li><code>repetitions</code> - number of times every kind of retrieval is repeated (default 5)</li>
+ *     <li><code>replyTimeoutMillis</code> - time to wait for a response to a retrieval request (default: the reply
+ *     timeout of the connection)</li>
+ * </ul>
+ */
+public class PubSubItemRetrievalIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "itemRetrieval";
+
+    /**
+     * The measurements of one way of retrieving items.
+     */
+    private static final class Retrieval {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private long requests;
+
+        private long timeouts;
+
+        private long items;
+
+        private long bytes;
+
+        private long retainedHeapBytes;
+
+        private void putInto(BenchmarkReport report, String prefix) {
+            report.put(prefix + ".requests", requests)
+                .put(prefix + ".timeouts", timeouts)
+                .put(prefix + ".items", items)
+                .put(prefix + ".bytes", bytes)
+                .put(prefix + ".retainedHeapBytes", retainedHeapBytes)
+                .put(prefix + ".latency", latency);
+        }
+    }
+
+    public PubSubItemRetrievalIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Fills persistent nodes with items, and measures the different ways of retrieving these items.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws NoResponseException if there was no response from the remote entity while setting up a node.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws TestNotPossibleException if the service does not support nodes with persistent items.
+     */
+    @SmackIntegrationTest
+    public void itemRetrievalTest() throws InterruptedException, NoResponseException, XMPPErrorException, NotConnectedException, TestNotPossibleException {
+        final List<Integer> itemCounts = PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "itemCounts", 10000);
+        final int payloadSize = getIntSetting("payloadSize", 256);
+        final int fillWindow = getIntSetting("fillWindow", 64);
+        final int maxItems = getIntSetting("maxItems", 100);
+        final int pageSize = getIntSetting("pageSize", 100);
+        final int idsPerRequest = getIntSetting("idsPerRequest", 10);
+        final int repetitions = getIntSetting("repetitions", 5);
+        final long replyTimeoutMillis = PubSubBenchmarkConfiguration.getLong(BENCHMARK, "replyTimeoutMillis", conOne.getReplyTimeout());
+
+        final BenchmarkReport report = newReport()
+            .put("itemCounts", itemCounts)
+            .put("payloadSize", payloadSize)
+            .put("maxItems", maxItems)
+            .put("pageSize", pageSize)
+            .put("idsPerRequest", idsPerRequest)
+            .put("replyTimeoutMillis", replyTimeoutMillis);
+
+        long totalFillErrors = 0;
+        for (int itemCount : itemCounts) {
+            final String nodename = nodename("items" + itemCount);
+            try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+                final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+                config.setPersistentItems(true);
+                config.setMaxItems(itemCount);
+                final LeafNode node;
+                try {
+                    node = fixture.createNodes(Collections.singletonList(nodename), config).get(0);
+                } catch (XMPPErrorException e) {
+                    throw new TestNotPossibleException("PubSub service does not support a persistent node holding " + itemCount + " items: " + e.getStanzaError().getCondition());
+                }
+
+                final String prefix = "items." + itemCount;
+                final long fillStart = System.nanoTime();
+                final long fillErrors = fill(node, itemCount, payloadSize, fillWindow);
+                totalFillErrors += fillErrors;
+                report.put(prefix + ".fillSeconds", (System.nanoTime() - fillStart) / 1_000_000_000d)
+                    .put(prefix + ".fillErrors", fillErrors);
+
+                final Retrieval all = new Retrieval();
+                final Retrieval limited = new Retrieval();
+                final Retrieval byId = new Retrieval();
+                final Retrieval paged = new Retrieval();
+                final LatencyHistogram walks = new LatencyHistogram();
+                boolean pagedSupported = true;
+                final int maxPages = itemCount / pageSize + 2;
+                long pagedStalls = 0;
+                final PubSubItemPager pager = new PubSubItemPager(node, pageSize).setReplyTimeout(replyTimeoutMillis);
+                final LatencyHistogram streamedWalks = new LatencyHistogram();
+                long streamedItems = 0;
+                long streamedTimeouts = 0;
+                long streamedStalls = 0;
+                final Random random = new Random(itemCount);
+                for (int r = 0; r < repetitions; r++) {
+                    final boolean measureHeap = r == 0;
+                    retrieve(PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new GetItemsRequest(nodename)), replyTimeoutMillis, all, measureHeap);
+                    retrieve(PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new GetItemsRequest(nodename, maxItems)), replyTimeoutMillis, limited, measureHeap);
+
+                    final List<Item> ids = new ArrayList<>(idsPerRequest);
+                    for (int i = 0; i < idsPerRequest; i++) {
+                        ids.add(new Item("item" + random.nextInt(itemCount)));
+                    }
+                    retrieve(PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new ItemsExtension(ItemsExtension.ItemsElementType.items, nodename, ids)), replyTimeoutMillis, byId, measureHeap);
+
+                    final long walkStart = System.nanoTime();
+                    String after = null;
+                    // A complete walk takes a page per pageSize items, and possibly an empty page that ends it.
+                    for (int page = 0; ; page++) {
+                        if (page == maxPages) {
+                            LOGGER.warning("Paging through node '" + nodename + "' did not end after " + maxPages + " pages.");
+                            pagedStalls++;
+                            break;
+                        }
+                        final PubSub request = PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new GetItemsRequest(nodename));
+                        request.addExtension(after == null ? new RSMSet(pageSize) : new RSMSet(pageSize, after, RSMSet.PageDirection.after));
+                        final PubSub response = retrieve(request, replyTimeoutMillis, paged, measureHeap && after == null);
+                        if (response == null) {
+                            break;
+                        }
+                        final RSMSet set = RSMSet.from(response);
+                        if (set == null) {
+                            // The service ignored the paging request, and returned all items at once.
+                            pagedSupported = false;
+                            break;
+                        }
+                        final ItemsExtension items = response.getExtension(PubSubElementType.ITEMS);
+                        if (set.getLast() == null || items == null || items.getItems().isEmpty()) {
+                            break;
+                        }
+                        if (set.getLast().equals(after)) {
+                            // The service ignored the <after/> of the request, and would return this page forever.
+                            LOGGER.warning("Paging through node '" + nodename + "' returned the page after item '" + after + "' again.");
+                            pagedStalls++;
+                            break;
+                        }
+                        after = set.getLast();
+                    }
+                    walks.recordNanos(System.nanoTime() - walkStart);
+
+                    final long streamStart = System.nanoTime();
+                    try {
+                        streamedItems += pager.forEach(item -> { });
+                        streamedWalks.recordNanos(System.nanoTime() - streamStart);
+                    } catch (NoResponseException e) {
+                        streamedTimeouts++;
+                    } catch (IllegalStateException e) {
+                        LOGGER.warning(e.getMessage());
+                        streamedStalls++;
+                    }
+                }
+
+                all.putInto(report, prefix + ".all");
+                limited.putInto(report, prefix + ".maxItems");
+                byId.putInto(report, prefix + ".byId");
+                paged.putInto(report, prefix + ".paged");
+                report.put(prefix + ".paged.supported", pagedSupported)
+                    .put(prefix + ".paged.stalls", pagedStalls)
+                    .put(prefix + ".paged.walk", walks)
+                    .put(prefix + ".streamed.items", streamedItems)
+                    .put(prefix + ".streamed.pages", pager.getPages())
+                    .put(prefix + ".streamed.timeouts", streamedTimeouts)
+                    .put(prefix + ".streamed.stalls", streamedStalls)
+                    .put(prefix + ".streamed.pageLatency", pager.getPageLatencies())
+                    .put(prefix + ".streamed.walk", streamedWalks);
+            }
+        }
+        report.publish();
+
+        assertTrue(totalFillErrors == 0, "Not all items could be published to the nodes (failed: " + totalFillErrors + ").");
+    }
+
+    /**
+     * Publishes items with IDs <code>item0</code> up to <code>item&lt;count - 1&gt;</code> to a node.
+     *
+     * @return the number of items that could not be published.
+     */
+    private long fill(LeafNode node, int count, int payloadSize, int window) throws InterruptedException {
+        final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        for (int i = 0; i < count; i++) {
+            publisher.publish(node, new PayloadItem<>("item" + i, GeoLocation.builder().setDescription(description).build()))
+                .whenComplete((ack, e) -> {
+                    if (e != null) {
+                        LOGGER.log(Level.FINE, "Publishing to " + node.getId() + " failed.", e);
+                    }
+                });
+        }
+        if (!publisher.awaitAnswers(conOne.getReplyTimeout(), TimeUnit.MILLISECONDS)) {
+            return publisher.getFailed() + publisher.getInFlight();
+        }
+        return publisher.getFailed();
+    }
+
+    /**
+     * Sends a request for items, and records the latency, size and number of items of the response.
+     *
+     * @return the response, or null if no response was received in time.
+     */
+    private PubSub retrieve(PubSub request, long timeoutMillis, Retrieval retrieval, boolean measureHeap) throws InterruptedException, XMPPErrorException, NotConnectedException {
+        final ResourceSnapshot before = measureHeap ? ResourceSnapshot.take() : null;
+        retrieval.requests++;
+        final long start = System.nanoTime();
+        final PubSub response;
+        try (StanzaCollector collector = conOne.createStanzaCollectorAndSend(request)) {
+            response = collector.nextResultOrThrow(timeoutMillis);
+        } catch (NoResponseException e) {
+            retrieval.timeouts++;
+            return null;
+        }
+        retrieval.latency.recordNanos(System.nanoTime() - start);
+        if (before != null) {
+            // The response is still referenced, so it is included in the heap usage of this snapshot.
+            retrieval.retainedHeapBytes = Math.max(retrieval.retainedHeapBytes, ResourceSnapshot.take().getUsedHeapBytes() - before.getUsedHeapBytes());
+        }
+        retrieval.bytes += response.toXML().toString().getBytes(StandardCharsets.UTF_8).length;
+        final ItemsExtension items = response.getExtension(PubSubElementType.ITEMS);
+        if (items != null) {
+            retrieval.items += items.getItems().size();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.NamedElement;
+import org.jivesoftware.smack.packet.Stanza;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.shim.packet.Header;
+import org.jivesoftware.smackx.shim.packet.HeadersExtension;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures what it costs when subscribers hold more than one subscription to the same node, as is possible when the
+ * service supports the <code>multi-subscribe</code> feature.
+ *
+ * <p>For every configured number of subscriptions per subscriber, a node is created, and every subscriber subscribes to
+ * it that many times, with plain subscription requests, to each of which a service that supports the feature answers
+ * with a subscription of its own (XEP-0060 § 6.1.6). Items are then published at a fixed rate. The report contains, for
+ * every number of subscriptions, the number of distinct subscription IDs that the service handed out, the number of
+ * notification stanzas and bytes per published item and subscriber, the number of SubID headers (XEP-0131) per stanza
+ * and the bytes that the headers add, the notification latency (of the first notification of every item), and the
+ * number of items that were notified to the same subscriber more than once. A service that sends one notification that
+ * lists all subscription IDs keeps the number of stanzas per item at one; a service that sends a notification per
+ * subscription multiplies it.</p>
+ *
+ * <p>Sizes are estimated from a sample of the notification stanzas. The listeners only set the sampled stanzas aside:
+ * they are serialized after the notifications were received, so that serialization does not delay the listener
+ * threads, and with them the measured latency.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>multiSubscription</code> to <code>sinttest.pubsub.benchmarks</code>. It
+ * is configured with these <code>sinttest.pubsub.multiSubscription.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscriptionsPerSubscriber</code> - comma-separated numbers of subscriptions that every subscriber holds,
+ *     one step per number (default 1,2,4,8)</li>
+ *     <li><code>subscribers</code> - number of subscribers, each with an account of its own (default 10)</li>
+ *     <li><code>publishRate</code> - number of items published per second (default 10)</li>
+ *     <li><code>durationSeconds</code> - duration of the publishing phase of each step (default 10)</li>
+ *     <li><code>window</code> - maximum number of publish requests in flight (default 16)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of subscribers that subscribe concurrently (default 32)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for outstanding notifications after the last item was
+ *     published (default 30)</li>
+ *     <li><code>sizeSampleInterval</code> - one in this many notification stanzas is sampled to estimate sizes
+ *     (default 10)</li>
+ *     <li><code>slo.maxStanzasPerItem</code> - maximum number of notification stanzas per item and subscriber, at every
+ *     step (default: not checked)</li>
+ *     <li><code>slo.maxMissed</code> - number of missed item notifications that is tolerated per step (default 0)</li>
+ * </ul>
+ */
+public class PubSubMultiSubscriptionIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "multiSubscription";
+
+    /**
+     * The notifications that were received in one step.
+     */
+    private static final class Deliveries {
+
+        private final Map<String, Long> publishTimes = new ConcurrentHashMap<>();
+
+        private final List<Set<String>> notifiedPerSubscriber = new ArrayList<>();
+
+        private final AtomicLong stanzas = new AtomicLong();
+
+        private final int sizeSampleInterval;
+
+        // The stanzas of which the size is measured, once all notifications were received.
+        private final Queue<Stanza> sizeSamples = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong subIdHeaders = new AtomicLong();
+
+        private final AtomicLong notified = new AtomicLong();
+
+        private final AtomicLong duplicates = new AtomicLong();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Deliveries(int subscriberCount, int sizeSampleInterval) {
+            this.sizeSampleInterval = sizeSampleInterval;
+            for (int s = 0; s < subscriberCount; s++) {
+                notifiedPerSubscriber.add(ConcurrentHashMap.newKeySet());
+            }
+        }
+    }
+
+    public PubSubMultiSubscriptionIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+        if (!capabilities.supports(PubSubFeature.multi_subscribe)) {
+            throw capabilities.notPossible(getClass().getSimpleName(), "Feature 'multi-subscribe' not supported on the server.");
+        }
+    }
+
+    /**
+     * Subscribes every subscriber to a node an increasing number of times, publishes items at a fixed rate, and records
+     * the notification volume, header overhead, latency and duplicates for every number of subscriptions.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    @SmackIntegrationTest
+    public void multiSubscriptionTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Integer> subscriptionCounts = PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "subscriptionsPerSubscriber", 1, 2, 4, 8);
+        final int subscriberCount = getIntSetting("subscribers", 10);
+        final int publishRate = Math.max(1, getIntSetting("publishRate", 10));
+        final int durationSeconds = getIntSetting("durationSeconds", 10);
+        final int window = getIntSetting("window", 16);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+        final int sizeSampleInterval = Math.max(1, getIntSetting("sizeSampleInterval", 10));
+        final double maxStanzasPerItem = getDoubleSetting("slo.maxStanzasPerItem", 0);
+        final int maxMissed = getIntSetting("slo.maxMissed", 0);
+
+        // The first connection of the pool is the publisher. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        final int itemCount = publishRate * durationSeconds;
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / publishRate;
+        final long expected = (long) itemCount * subscriberCount;
+        final BenchmarkReport report = newReport()
+            .put("subscriptionsPerSubscriber", subscriptionCounts)
+            .put("subscribers", subscriberCount)
+            .put("publishRate", publishRate)
+            .put("durationSeconds", durationSeconds);
+        final List<Runnable> sloChecks = new ArrayList<>();
+
+        for (int subscriptionCount : subscriptionCounts) {
+            final String nodename = nodename("subscriptions" + subscriptionCount);
+            final Deliveries deliveries = new Deliveries(subscriberCount, sizeSampleInterval);
+            final List<ScopedStanzaListener> listeners = new ArrayList<>();
+            final ExecutorService executor = PubSubActors.newExecutor(Math.min(subscribeConcurrency, subscriberCount));
+            try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+                final LeafNode node = fixture.createNode(nodename);
+
+                final LatencyHistogram subscribe = new LatencyHistogram();
+                final List<Future<Set<String>>> subscriptionIds = new ArrayList<>();
+                for (int s = 0; s < subscriberCount; s++) {
+                    final XMPPConnection subscriber = subscribers.get(s);
+                    final int subscriberIndex = s;
+                    listeners.add(ScopedStanzaListener.sync(subscriber, stanza -> onNotification(stanza, deliveries, subscriberIndex), PubSubEventFilter.items(nodename)));
+                    subscriptionIds.add(executor.submit(() -> {
+                        final Node subscriberNode = getPubSubManager(subscriber).getNode(nodename);
+                        final Set<String> ids = new HashSet<>();
+                        for (int k = 0; k < subscriptionCount; k++) {
+                            final long start = System.nanoTime();
+                            ids.add(subscriberNode.subscribe(subscriber.getUser().asEntityBareJid()).getId());
+                            subscribe.recordNanos(System.nanoTime() - start);
+                        }
+                        return ids;
+                    }));
+                }
+                long distinctSubscriptionIds = 0;
+                for (Future<Set<String>> ids : subscriptionIds) {
+                    distinctSubscriptionIds += ids.get().size();
+                }
+
+                final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+                publisher.publishAtFixedRate(node, itemCount, intervalNanos, i -> {
+                    final String itemId = "item" + i;
+                    deliveries.publishTimes.put(itemId, System.nanoTime());
+                    return new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build());
+                });
+                publisher.awaitAnswers(deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                PubSubActors.awaitCondition(() -> deliveries.notified.get() >= expected, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+                // Give notifications for additional subscriptions, that may follow the first one, the time to arrive.
+                Thread.sleep(500);
+
+                final long stanzas = deliveries.stanzas.get();
+                long sampledBytes = 0;
+                long sampledHeaderBytes = 0;
+                for (Stanza sample : deliveries.sizeSamples) {
+                    sampledBytes += sample.toXML().toString().getBytes(StandardCharsets.UTF_8).length;
+                    final HeadersExtension headers = HeadersExtension.from(sample);
+                    if (headers != null) {
+                        sampledHeaderBytes += headers.toXML().toString().getBytes(StandardCharsets.UTF_8).length;
+                    }
+                }
+                final int samples = deliveries.sizeSamples.size();
+                final double bytesPerStanza = samples == 0 ? 0 : (double) sampledBytes / samples;
+                final double stanzasPerItem = (double) stanzas / expected;
+                final long missed = expected - deliveries.notified.get();
+                final String prefix = "subscriptions" + subscriptionCount;
+                report.put(prefix + ".distinctSubscriptionIds", distinctSubscriptionIds)
+                    .put(prefix + ".subscribe", subscribe)
+                    .put(prefix + ".publishErrors", publisher.getFailed())
+                    .put(prefix + ".stanzas", stanzas)
+                    .put(prefix + ".stanzasPerItem", stanzasPerItem)
+                    .put(prefix + ".sizeSamples", samples)
+                    .put(prefix + ".bytesPerItem", bytesPerStanza * stanzas / expected)
+                    .put(prefix + ".subIdHeadersPerStanza", stanzas == 0 ? 0 : (double) deliveries.subIdHeaders.get() / stanzas)
+                    .put(prefix + ".headerBytesPerStanza", samples == 0 ? 0 : (double) sampledHeaderBytes / samples)
+                    .put(prefix + ".missedItems", missed)
+                    .put(prefix + ".duplicateItems", deliveries.duplicates.get())
+                    .put(prefix + ".latency", deliveries.latency);
+                sloChecks.add(() -> {
+                    assertTrue(missed <= maxMissed, "Item notifications were missed with " + subscriptionCount + " subscriptions per subscriber: " + missed + " of " + expected + " (tolerated: " + maxMissed + ")");
+                    assertSlo("notification stanzas per item and subscriber, with " + subscriptionCount + " subscriptions per subscriber", stanzasPerItem, maxStanzasPerItem, false);
+                });
+            } finally {
+                executor.shutdownNow();
+                listeners.forEach(ScopedStanzaListener::close);
+            }
+        }
+        report.publish();
+        for (Runnable sloCheck : sloChecks) {
+            sloCheck.run();
+        }
+    }
+
+    /**
+     * Records a notification stanza: its SubID headers, and for every item whether it was notified to the subscriber
+     * before. One in every {@link Deliveries#sizeSampleInterval} stanzas is set aside to measure its size later.
+     */
+    private static void onNotification(Stanza stanza, Deliveries deliveries, int subscriberIndex) {
+        final long received = System.nanoTime();
+        if ((deliveries.stanzas.incrementAndGet() - 1) % deliveries.sizeSampleInterval == 0) {
+            deliveries.sizeSamples.add(stanza);
+        }
+        final HeadersExtension headers = HeadersExtension.from(stanza);
+        if (headers != null) {
+            for (Header header : headers.getHeaders()) {
+                if ("SubID".equals(header.getName())) {
+                    deliveries.subIdHeaders.incrementAndGet();
+                }
+            }
+        }
+        final Set<String> notified = deliveries.notifiedPerSubscriber.get(subscriberIndex);
+        for (NamedElement element : ((ItemsExtension) EventElement.from(stanza).getEvent()).getItems()) {
+            if (!(element instanceof Item)) {
+                continue;
+            }
+            final String itemId = ((Item) element).getId();
+            final Long published = deliveries.publishTimes.get(itemId);
+            if (published == null) {
+                continue;
+            }
+            if (!notified.add(itemId)) {
+                deliveries.duplicates.incrementAndGet();
+                continue;
+            }
+            deliveries.latency.recordNanos(received - published);
+            deliveries.notified.incrementAndGet();
+        }
+    }
+}
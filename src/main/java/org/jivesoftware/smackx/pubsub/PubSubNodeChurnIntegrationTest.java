@@ -0,0 +1,248 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures the rate at which a PubSub service creates and deletes nodes, for several node configurations.
+ *
+ * <p>This benchmark is enabled by adding <code>nodeChurn</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.nodeChurn.*</code> properties:</p>
+ * <ul>
+ *     <li><code>shapes</code> - comma-separated list of the configurations to measure, out of <code>default</code>,
+ *     <code>persistent</code>, <code>transient</code>, <code>maxItems</code>, <code>open</code>,
+ *     <code>authorize</code>, <code>whitelist</code>, <code>roster</code> and <code>presence</code> (default: all)</li>
+ *     <li><code>maxItems</code> - the maximum number of items of nodes in the <code>maxItems</code> shape (default
+ *     10)</li>
+ *     <li><code>connections</code> - number of connections that create and delete nodes (default 3)</li>
+ *     <li><code>threadsPerConnection</code> - number of concurrent actors per connection (default 4)</li>
+ *     <li><code>warmupSeconds</code> - duration of the unmeasured warm-up phase, per shape (default 2)</li>
+ *     <li><code>durationSeconds</code> - duration of the measured phase, per shape (default 10)</li>
+ *     <li><code>slo.minCyclesPerSecond</code>, <code>slo.p99Millis</code> - service level objectives for every
+ *     shape, that fail the test when missed (default: not checked). The latency objective applies to both creation
+ *     and deletion.</li>
+ *     <li><code>slo.maxErrors</code> - number of failed requests that is tolerated per shape (default 0)</li>
+ * </ul>
+ *
+ * <p>Every actor repeatedly creates a node with the configuration of the shape, submitted as part of the creation
+ * request, and then deletes it again. Shapes are measured one after the other. A shape whose configuration is rejected
+ * by the service is reported as not supported, rather than failing the benchmark.</p>
+ */
+public class PubSubNodeChurnIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "nodeChurn";
+
+    private static final String ALL_SHAPES = "default,persistent,transient,maxItems,open,authorize,whitelist,roster,presence";
+
+    public PubSubNodeChurnIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Creates and deletes nodes of every configured shape from several connections concurrently, for a fixed duration
+     * per shape, and asserts that the configured throughput and latency objectives are met.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if an actor terminated unexpectedly.
+     */
+    @SmackIntegrationTest
+    public void nodeChurnTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final String[] shapes = PubSubBenchmarkConfiguration.getString(BENCHMARK, "shapes", ALL_SHAPES).split("\\s*,\\s*");
+        final int connectionCount = getIntSetting("connections", 3);
+        final int threadsPerConnection = getIntSetting("threadsPerConnection", 4);
+        final int warmupSeconds = getIntSetting("warmupSeconds", 2);
+        final int durationSeconds = getIntSetting("durationSeconds", 10);
+        final double minCyclesPerSecond = getDoubleSetting("slo.minCyclesPerSecond", 0);
+        final double maxP99Millis = getDoubleSetting("slo.p99Millis", 0);
+        final int maxErrors = getIntSetting("slo.maxErrors", 0);
+
+        final List<XMPPConnection> connections = getConnections(connectionCount);
+        final BenchmarkReport report = newReport()
+            .put("connections", connectionCount)
+            .put("threadsPerConnection", threadsPerConnection)
+            .put("durationSeconds", durationSeconds);
+        final List<Runnable> sloChecks = new ArrayList<>();
+        final Set<String> undeleted = Collections.synchronizedSet(new LinkedHashSet<>());
+        final ExecutorService executor = PubSubActors.newExecutor(connectionCount * threadsPerConnection);
+        try {
+            for (String shape : shapes) {
+                final FillableConfigureForm config = createConfiguration(shape);
+                final String probe = nodename(shape + "-probe");
+                try {
+                    pubSubManagerOne.createNode(probe, config);
+                    pubSubManagerOne.deleteNode(probe);
+                } catch (XMPPErrorException e) {
+                    LOGGER.log(Level.INFO, "Node configuration '" + shape + "' is not supported by " + pubSubService + ".", e);
+                    report.put(shape + ".supported", false);
+                    continue;
+                }
+
+                final LatencyHistogram create = new LatencyHistogram();
+                final LatencyHistogram delete = new LatencyHistogram();
+                final AtomicLong errors = new AtomicLong();
+                final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+                final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+                final List<Future<Void>> actors = new ArrayList<>();
+                for (int c = 0; c < connectionCount; c++) {
+                    final PubSubManager manager = getPubSubManager(connections.get(c));
+                    for (int t = 0; t < threadsPerConnection; t++) {
+                        final String prefix = shape + '-' + c + '-' + t + '-';
+                        final Callable<Void> actor = () -> {
+                            for (long n = 0; ; n++) {
+                                final long start = System.nanoTime();
+                                if (start >= measureEnd) {
+                                    return null;
+                                }
+                                final boolean measured = start >= measureStart;
+                                final String nodeId = nodename(prefix + n);
+                                try {
+                                    manager.createNode(nodeId, config);
+                                } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                                    if (measured && errors.getAndIncrement() == 0) {
+                                        LOGGER.log(Level.WARNING, "Creating node " + nodeId + " failed.", e);
+                                    }
+                                    continue;
+                                }
+                                final long created = System.nanoTime();
+                                try {
+                                    manager.deleteNode(nodeId);
+                                } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                                    undeleted.add(nodeId);
+                                    if (measured && errors.getAndIncrement() == 0) {
+                                        LOGGER.log(Level.WARNING, "Deleting node " + nodeId + " failed.", e);
+                                    }
+                                    continue;
+                                }
+                                if (measured) {
+                                    create.recordNanos(created - start);
+                                    delete.recordNanos(System.nanoTime() - created);
+                                }
+                            }
+                        };
+                        actors.add(executor.submit(actor));
+                    }
+                }
+                for (Future<Void> actor : actors) {
+                    actor.get();
+                }
+
+                final double cyclesPerSecond = (double) create.getCount() / durationSeconds;
+                report.put(shape + ".supported", true)
+                    .put(shape + ".cyclesPerSecond", cyclesPerSecond)
+                    .put(shape + ".errors", errors.get())
+                    .put(shape + ".create", create)
+                    .put(shape + ".delete", delete);
+                sloChecks.add(() -> {
+                    assertTrue(errors.get() <= maxErrors, "Requests failed for node configuration '" + shape + "': " + errors.get() + " (tolerated: " + maxErrors + ")");
+                    assertSlo(String.format(Locale.ROOT, "'%s' throughput (cycles/sec)", shape), cyclesPerSecond, minCyclesPerSecond, true);
+                    assertSlo(String.format(Locale.ROOT, "'%s' p99 create latency (ms)", shape), create.getMillisAtPercentile(99), maxP99Millis, false);
+                    assertSlo(String.format(Locale.ROOT, "'%s' p99 delete latency (ms)", shape), delete.getMillisAtPercentile(99), maxP99Millis, false);
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+            deleteQuietly(connections, undeleted);
+        }
+        report.publish();
+        for (Runnable sloCheck : sloChecks) {
+            sloCheck.run();
+        }
+    }
+
+    /**
+     * Creates the configuration form of a shape, based on the default node configuration of the service.
+     */
+    private FillableConfigureForm createConfiguration(String shape) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+        switch (shape) {
+        case "default":
+            break;
+        case "persistent":
+            config.setPersistentItems(true);
+            break;
+        case "transient":
+            config.setPersistentItems(false);
+            config.setDeliverPayloads(false);
+            break;
+        case "maxItems":
+            config.setPersistentItems(true);
+            config.setMaxItems(getIntSetting("maxItems", 10));
+            break;
+        case "open":
+        case "authorize":
+        case "whitelist":
+        case "roster":
+        case "presence":
+            config.setAccessModel(AccessModel.valueOf(shape));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown node configuration in " + PubSubBenchmarkConfiguration.PROPERTY_PREFIX + BENCHMARK + ".shapes: " + shape);
+        }
+        return config;
+    }
+
+    /**
+     * Deletes nodes of which the deletion failed during the benchmark, using each of the connections that may own them.
+     */
+    private void deleteQuietly(List<XMPPConnection> connections, Set<String> nodeIds) throws InterruptedException {
+        for (String nodeId : nodeIds) {
+            for (XMPPConnection connection : connections) {
+                try {
+                    getPubSubManager(connection).deleteNode(nodeId);
+                    break;
+                } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                    LOGGER.log(Level.FINE, "Unable to delete node " + nodeId + " using " + connection.getUser() + ".", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.SmackFuture;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smack.packet.StanzaError;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+
+/**
+ * Creates and deletes PubSub nodes in batches.
+ *
+ * <p>Creating and deleting nodes one at a time through {@link PubSubManager} costs a full round-trip per node. This
+ * fixture sends all creation (or deletion) requests of a batch without waiting for the responses, and only then
+ * collects the responses. The cost of setting up or tearing down a batch of nodes is therefore roughly one round-trip,
+ * regardless of the number of nodes.</p>
+ *
+ * <p>Nodes that were created through a fixture are deleted when it is closed, which allows it to be used in a
+ * try-with-resources statement. Nodes that no longer exist at that time (for example because a test deleted them) are
+ * silently skipped.</p>
+ */
+public final class PubSubNodeFixture implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(PubSubNodeFixture.class.getName());
+
+    /**
+     * The prefix of the names of all nodes that are created by the tests in this project.
+     */
+    public static final String NODE_PREFIX = "sinttest-";
+
+    // Guarded by the class monitor.
+    private static boolean leftoverNodesDeleted;
+
+    private final PubSubManager pubSubManager;
+
+    private final Set<String> createdNodeIds = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    /**
+     * Creates a fixture that creates nodes on the service of a PubSub manager, owned by the manager's connection.
+     *
+     * @param pubSubManager the manager for the service and owner of the nodes.
+     */
+    public PubSubNodeFixture(PubSubManager pubSubManager) {
+        this.pubSubManager = pubSubManager;
+    }
+
+    /**
+     * Creates a single node with the default configuration of the service.
+     *
+     * @param nodeId the ID of the node.
+     * @return the created node.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public LeafNode createNode(String nodeId) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        return createNodes(Collections.singletonList(nodeId), null).get(0);
+    }
+
+    /**
+     * Creates nodes with the default configuration of the service.
+     *
+     * @param nodeIds the IDs of the nodes.
+     * @return the created nodes, in the order of their IDs.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @see #createNodes(Collection, FillableConfigureForm)
+     */
+    public List<LeafNode> createNodes(Collection<String> nodeIds) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        return createNodes(nodeIds, null);
+    }
+
+    /**
+     * Creates nodes that all have the same configuration. The creation requests for all nodes are sent before any
+     * response is awaited.
+     *
+     * <p>If the creation of one or more nodes fails, the exception of the first failure is thrown, with the exceptions
+     * of further failures added as suppressed exceptions. The nodes that were created successfully are deleted when
+     * this fixture is closed.</p>
+     *
+     * @param nodeIds the IDs of the nodes.
+     * @param config the configuration of the nodes, or null to use the default configuration of the service.
+     * @return the created nodes, in the order of their IDs.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public List<LeafNode> createNodes(Collection<String> nodeIds, FillableConfigureForm config) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final Map<String, SmackFuture<IQ, Exception>> requests = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            final PubSub request = PubSub.createPubsubPacket(pubSubManager.getServiceJid(), IQ.Type.set, new NodeExtension(PubSubElementType.CREATE, nodeId));
+            if (config != null) {
+                request.addExtension(new FormNode(FormNodeType.CONFIGURE, config.getDataFormToSubmit()));
+            }
+            requests.put(nodeId, pubSubManager.getConnection().sendIqRequestAsync(request));
+        }
+
+        final List<LeafNode> result = new ArrayList<>(requests.size());
+        Exception failure = null;
+        for (Map.Entry<String, SmackFuture<IQ, Exception>> request : requests.entrySet()) {
+            try {
+                request.getValue().getOrThrow();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = addFailure(failure, e);
+                continue;
+            }
+            createdNodeIds.add(request.getKey());
+            result.add(new LeafNode(pubSubManager, request.getKey()));
+        }
+        throwIfFailed(failure);
+        return result;
+    }
+
+    /**
+     * Deletes all nodes that were created through this fixture and that were not yet deleted. The deletion requests
+     * for all nodes are sent before any response is awaited. Nodes that no longer exist are skipped.
+     *
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public void deleteNodes() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final List<String> nodeIds;
+        synchronized (createdNodeIds) {
+            nodeIds = new ArrayList<>(createdNodeIds);
+            createdNodeIds.clear();
+        }
+        throwIfFailed(deleteNodes(pubSubManager, nodeIds));
+    }
+
+    /**
+     * Deletes all nodes that were created through this fixture.
+     *
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @see #deleteNodes()
+     */
+    @Override
+    public void close() throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        deleteNodes();
+    }
+
+    /**
+     * Deletes the nodes that were left behind on a PubSub service by earlier test runs of the same account, for example
+     * because these runs were aborted before they could clean up. These are the nodes of which the account of the
+     * manager's connection is the owner, according to the affiliations that the service reports for it (XEP-0060
+     * &sect; 5.7), that have a name that starts with {@link #NODE_PREFIX}, but that does not contain the ID of the
+     * current test run. Nodes of other accounts are never deleted. Services that do not report affiliations are not
+     * cleaned up.
+     *
+     * <p>The clean-up is opt-in, by setting <code>sinttest.pubsub.cleanup.leftoverNodes</code> to <code>true</code>,
+     * and is performed at most once per JVM: later calls return immediately. It must not be enabled when another run
+     * that uses the same account may be executing at the same time, as the nodes of that run would be deleted.</p>
+     *
+     * @param pubSubManager the manager for the service, and the owner of the nodes to delete.
+     * @param testRunId the ID of the current test run.
+     * @return the number of nodes that were deleted.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public static synchronized int deleteLeftoverNodes(PubSubManager pubSubManager, String testRunId) throws InterruptedException {
+        if (leftoverNodesDeleted || !PubSubBenchmarkConfiguration.getBoolean("cleanup", "leftoverNodes", false)) {
+            return 0;
+        }
+        leftoverNodesDeleted = true;
+        final List<String> leftovers = new ArrayList<>();
+        try {
+            for (Affiliation affiliation : pubSubManager.getAffiliations()) {
+                final String nodeId = affiliation.getNode();
+                if (affiliation.getAffiliation() == Affiliation.Type.owner && nodeId != null
+                        && nodeId.startsWith(NODE_PREFIX) && !nodeId.contains(testRunId)) {
+                    leftovers.add(nodeId);
+                }
+            }
+        } catch (NoResponseException | XMPPErrorException | NotConnectedException e) {
+            LOGGER.log(Level.FINE, "Unable to retrieve the affiliations with the nodes of " + pubSubManager.getServiceJid() + ".", e);
+            return 0;
+        }
+        if (leftovers.isEmpty()) {
+            return 0;
+        }
+        final Exception failure = deleteNodes(pubSubManager, leftovers);
+        final int failed = failure == null ? 0 : 1 + failure.getSuppressed().length;
+        final int deleted = leftovers.size() - failed;
+        LOGGER.info("Deleted " + deleted + " of " + leftovers.size() + " nodes left behind on " + pubSubManager.getServiceJid() + " by earlier test runs.");
+        if (failure != null) {
+            LOGGER.log(Level.FINE, "Not all leftover nodes could be deleted.", failure);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes nodes, sending all requests before awaiting any response.
+     *
+     * @return the first failure (with further failures suppressed), or null if all nodes were deleted or did not exist.
+     */
+    private static Exception deleteNodes(PubSubManager pubSubManager, Collection<String> nodeIds) throws InterruptedException {
+        final List<SmackFuture<IQ, Exception>> requests = new ArrayList<>(nodeIds.size());
+        for (String nodeId : nodeIds) {
+            final PubSub request = PubSub.createPubsubPacket(pubSubManager.getServiceJid(), IQ.Type.set, new NodeExtension(PubSubElementType.DELETE, nodeId));
+            requests.add(pubSubManager.getConnection().sendIqRequestAsync(request));
+        }
+        Exception failure = null;
+        for (SmackFuture<IQ, Exception> request : requests) {
+            try {
+                request.getOrThrow();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (XMPPErrorException e) {
+                if (e.getStanzaError().getCondition() != StanzaError.Condition.item_not_found) {
+                    failure = addFailure(failure, e);
+                }
+            } catch (Exception e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        return failure;
+    }
+
+    private static Exception addFailure(Exception failure, Exception e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    private static void throwIfFailed(Exception failure) throws NoResponseException, XMPPErrorException, NotConnectedException {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof NoResponseException) {
+            throw (NoResponseException) failure;
+        }
+        if (failure instanceof XMPPErrorException) {
+            throw (XMPPErrorException) failure;
+        }
+        if (failure instanceof NotConnectedException) {
+            throw (NotConnectedException) failure;
+        }
+        throw new IllegalStateException(failure);
+    }
+}
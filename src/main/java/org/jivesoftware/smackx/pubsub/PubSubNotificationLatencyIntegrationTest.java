@@ -0,0 +1,122 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures the latency between the publication of an item and the receipt of the corresponding event notification by
+ * each subscriber, for increasing numbers of subscribers per node.
+ *
+ * <p>This is the measured counterpart of {@link PubSubIntegrationTest#receivePublishedItemTest()}. It is enabled by
+ * adding <code>notificationLatency</code> to <code>sinttest.pubsub.benchmarks</code>, and is configured with these
+ * <code>sinttest.pubsub.notificationLatency.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscriberCounts</code> - comma-separated numbers of subscribers, one step per number
+ *     (default 1,10,100,1000,10000)</li>
+ *     <li><code>itemsPerStep</code> - number of items published in each step (default 50)</li>
+ *     <li><code>publishIntervalMillis</code> - delay between two publications (default 20)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for the last notification of a step (default 60)</li>
+ * </ul>
+ */
+public class PubSubNotificationLatencyIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "notificationLatency";
+
+    public PubSubNotificationLatencyIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Asserts that every subscriber receives a notification for every published item, and records the
+     * publish-to-notification latency for each subscriber, once for every configured number of subscribers.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    @SmackIntegrationTest
+    public void notificationLatencyBySubscriberCountTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Integer> subscriberCounts = PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "subscriberCounts", 1, 10, 100, 1000, 10000);
+        final int itemsPerStep = getIntSetting("itemsPerStep", 50);
+        final int publishIntervalMillis = getIntSetting("publishIntervalMillis", 20);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 60);
+
+        final String description = StringUtils.insecureRandomString(payloadSize);
+        final BenchmarkReport report = newReport()
+            .put("subscriberCounts", subscriberCounts)
+            .put("itemsPerStep", itemsPerStep)
+            .put("publishIntervalMillis", publishIntervalMillis);
+
+        long totalMissing = 0;
+        for (int subscriberCount : subscriberCounts) {
+            // The first connection of the pool is the publisher. All others are subscribers.
+            final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+            final String nodename = nodename("subscribers" + subscriberCount);
+            final LeafNode node = pubSubManagerOne.createNode(nodename);
+            try (PubSubSubscriberGroup group = new PubSubSubscriberGroup(subscribers, pubSubService, nodename)) {
+                group.subscribe(subscribeConcurrency);
+
+                for (int i = 0; i < itemsPerStep; i++) {
+                    final String itemId = "item" + i;
+                    group.published(itemId);
+                    node.publish(new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build()));
+                    Thread.sleep(publishIntervalMillis);
+                }
+                group.awaitDeliveries(itemsPerStep, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+
+                final long expected = (long) itemsPerStep * subscriberCount;
+                final long missing = Math.max(0, expected - group.getTotalDeliveries());
+                totalMissing += missing;
+                report.put("subscribers." + subscriberCount + ".missing", missing);
+                report.put("subscribers." + subscriberCount + ".duplicates", group.getDuplicates());
+                report.put("subscribers." + subscriberCount + ".latency", group.getLatencies());
+            } finally {
+                pubSubManagerOne.deleteNode(nodename);
+            }
+        }
+        report.publish();
+
+        assertTrue(totalMissing == 0, "Not all subscribers received all notifications within " + deliveryTimeoutSeconds + " seconds (missing: " + totalMissing + ").");
+    }
+}
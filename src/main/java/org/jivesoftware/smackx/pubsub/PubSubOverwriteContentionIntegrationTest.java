@@ -0,0 +1,338 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures how a PubSub service handles many publishers that concurrently overwrite the same few items of a node, as
+ * is typical for nodes that hold the latest state of something, and verifies that the node ends up in a consistent
+ * state.
+ *
+ * <p>Every publisher repeatedly publishes to one of a small set of item IDs, each time with a payload that identifies
+ * the publication. After the run, the items of the node are retrieved. For every item ID, exactly one item must
+ * remain, and it must be a publication that could have been processed last: one that was not yet acknowledged when
+ * the last acknowledged publication to that item ID was sent, or one that was not answered in time, as the service may
+ * have processed it later. The benchmark also reports whether the remaining item is the publication that was
+ * acknowledged last, which is the expected outcome when publications are processed in the order in which they arrive,
+ * or a publication that was not answered in time. Item IDs to which no publication was acknowledged at all cannot be
+ * verified, and are reported as such.</p>
+ *
+ * <p>The node is created with the <code>open</code> publish model, so that every publisher can publish to it, and
+ * with a maximum number of items that equals the number of item IDs. When the service does not accept that maximum,
+ * the node is created with the default maximum of the service instead, and the item IDs of which no item remains are
+ * reported as evicted rather than as inconsistent.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>overwriteContention</code> to <code>sinttest.pubsub.benchmarks</code>.
+ * It is configured with these <code>sinttest.pubsub.overwriteContention.*</code> properties:</p>
+ * <ul>
+ *     <li><code>itemIds</code> - number of item IDs that are overwritten (default 1)</li>
+ *     <li><code>connections</code> - number of publishing connections, each for a different account (default 8)</li>
+ *     <li><code>threadsPerConnection</code> - number of concurrent publishers per connection (default 1)</li>
+ *     <li><code>warmupSeconds</code> - duration of the unmeasured warm-up phase (default 2)</li>
+ *     <li><code>durationSeconds</code> - duration of the measured phase (default 10)</li>
+ *     <li><code>slo.minItemsPerSecond</code>, <code>slo.p99Millis</code> - service level objectives that fail the test
+ *     when missed (default: not checked)</li>
+ *     <li><code>slo.maxErrors</code> - number of failed publish requests that is tolerated (default 0)</li>
+ * </ul>
+ */
+public class PubSubOverwriteContentionIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "overwriteContention";
+
+    public PubSubOverwriteContentionIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Overwrites the same items from many publishers concurrently, for a fixed duration, and asserts that exactly one
+     * item remains per item ID, that it is a publication that could have been processed last, and that the configured
+     * objectives are met.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a publisher terminated unexpectedly.
+     * @throws TestNotPossibleException if the service does not allow nodes with the open publish model.
+     */
+    @SmackIntegrationTest
+    public void overwriteContentionTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException, TestNotPossibleException {
+        final int itemIdCount = Math.max(1, getIntSetting("itemIds", 1));
+        final int connectionCount = getIntSetting("connections", 8);
+        final int threadsPerConnection = getIntSetting("threadsPerConnection", 1);
+        final int warmupSeconds = getIntSetting("warmupSeconds", 2);
+        final int durationSeconds = getIntSetting("durationSeconds", 10);
+        final double minItemsPerSecond = getDoubleSetting("slo.minItemsPerSecond", 0);
+        final double maxP99Millis = getDoubleSetting("slo.p99Millis", 0);
+        final int maxErrors = getIntSetting("slo.maxErrors", 0);
+
+        final List<XMPPConnection> connections = getConnections(connectionCount);
+        final String nodeId = nodename("node");
+        final List<HotItem> hotItems = new ArrayList<>();
+        for (int i = 0; i < itemIdCount; i++) {
+            hotItems.add(new HotItem("item" + i));
+        }
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final ExecutorService executor = PubSubActors.newExecutor(connectionCount * threadsPerConnection);
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            LeafNode ownerNode;
+            boolean maxItemsAccepted = true;
+            try {
+                ownerNode = fixture.createNodes(Collections.singletonList(nodeId), getConfiguration(itemIdCount)).get(0);
+            } catch (XMPPErrorException e) {
+                // The node must hold an item for every item ID. A service that does not allow max_items to be configured
+                // may hold fewer by default: the items that it evicted are then reported rather than failing the test.
+                LOGGER.log(Level.WARNING, "PubSub service did not accept a node that holds " + itemIdCount + " items (" + e.getStanzaError().getCondition() + "). Using its default maximum number of items instead.");
+                maxItemsAccepted = false;
+                try {
+                    ownerNode = fixture.createNodes(Collections.singletonList(nodeId), getConfiguration(0)).get(0);
+                } catch (XMPPErrorException e2) {
+                    throw new TestNotPossibleException("PubSub service does not allow nodes with the 'open' publish model: " + e2.getStanzaError());
+                }
+            }
+
+            final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+            final List<Future<Void>> publishers = new ArrayList<>();
+            for (int c = 0; c < connectionCount; c++) {
+                final LeafNode node = (LeafNode) getPubSubManager(connections.get(c)).getNode(nodeId);
+                for (int t = 0; t < threadsPerConnection; t++) {
+                    final String publisherId = "publisher-" + c + '-' + t;
+                    final int offset = c * threadsPerConnection + t;
+                    final Callable<Void> publisher = () -> {
+                        for (long n = 0; ; n++) {
+                            final long start = System.nanoTime();
+                            if (start >= measureEnd) {
+                                return null;
+                            }
+                            final HotItem hotItem = hotItems.get((int) ((offset + n) % hotItems.size()));
+                            final String token = publisherId + '-' + n;
+                            try {
+                                node.publish(new PayloadItem<>(hotItem.itemId, GeoLocation.builder().setDescription(token).build()));
+                            } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                                if (e instanceof NoResponseException) {
+                                    // The service may still have processed the publication, after the reply timeout.
+                                    hotItem.unacknowledged(token);
+                                }
+                                if (start >= measureStart && errors.getAndIncrement() == 0) {
+                                    LOGGER.log(Level.WARNING, "Publishing " + hotItem.itemId + " to " + nodeId + " failed.", e);
+                                }
+                                continue;
+                            }
+                            final long acked = System.nanoTime();
+                            hotItem.acknowledged(token, start, acked);
+                            if (start >= measureStart) {
+                                histogram.recordNanos(acked - start);
+                            }
+                        }
+                    };
+                    publishers.add(executor.submit(publisher));
+                }
+            }
+            for (Future<Void> publisher : publishers) {
+                publisher.get();
+            }
+
+            final List<Item> items = ownerNode.getItems();
+            int itemsMatchingLastAck = 0;
+            int itemsEvicted = 0;
+            int itemsUnacknowledged = 0;
+            int itemsExpected = 0;
+            final List<String> unverifiable = new ArrayList<>();
+            final List<String> inconsistencies = new ArrayList<>();
+            for (HotItem hotItem : hotItems) {
+                final List<String> tokens = new ArrayList<>();
+                for (Item item : items) {
+                    if (hotItem.itemId.equals(item.getId())) {
+                        tokens.add(getToken(item));
+                    }
+                }
+                if (tokens.isEmpty() && !maxItemsAccepted) {
+                    itemsEvicted++;
+                    continue;
+                }
+                final Publication lastAcknowledged = hotItem.lastAcknowledged.get();
+                if (lastAcknowledged == null) {
+                    // No publication to this item ID was acknowledged, so whether an item remains cannot be verified.
+                    unverifiable.add(hotItem.itemId);
+                    itemsExpected += Math.min(tokens.size(), 1);
+                    if (tokens.size() > 1) {
+                        inconsistencies.add(hotItem.itemId + ": " + tokens.size() + " items remain");
+                    }
+                    continue;
+                }
+                itemsExpected++;
+                if (tokens.size() != 1) {
+                    inconsistencies.add(hotItem.itemId + ": " + tokens.size() + " items remain");
+                    continue;
+                }
+                final String survivor = tokens.get(0);
+                if (!hotItem.couldBeLast(survivor)) {
+                    inconsistencies.add(hotItem.itemId + ": remaining publication " + survivor + " was superseded (last acknowledged: " + lastAcknowledged.token + ")");
+                }
+                if (survivor.equals(lastAcknowledged.token)) {
+                    itemsMatchingLastAck++;
+                } else if (hotItem.unacknowledgedTokens.contains(survivor)) {
+                    itemsUnacknowledged++;
+                }
+            }
+
+            final double itemsPerSecond = (double) histogram.getCount() / durationSeconds;
+            final BenchmarkReport report = newReport()
+                .put("itemIds", itemIdCount)
+                .put("maxItemsAccepted", maxItemsAccepted)
+                .put("connections", connectionCount)
+                .put("threadsPerConnection", threadsPerConnection)
+                .put("durationSeconds", durationSeconds)
+                .put("itemsPerSecond", itemsPerSecond)
+                .put("errors", errors.get())
+                .put("publish", histogram)
+                .put("itemsRemaining", items.size())
+                .put("itemsEvicted", itemsEvicted)
+                .put("itemsMatchingLastAck", itemsMatchingLastAck)
+                .put("itemsUnacknowledged", itemsUnacknowledged)
+                .put("itemsUnverifiable", unverifiable)
+                .put("inconsistencies", inconsistencies);
+            report.publish();
+
+            assertTrue(inconsistencies.isEmpty(), "Node " + nodeId + " is inconsistent after concurrent overwrites: " + inconsistencies);
+            assertEquals(itemsExpected, items.size(), "Unexpected number of items in node " + nodeId + " after concurrent overwrites.");
+            assertTrue(errors.get() <= maxErrors, "Publish requests failed: " + errors.get() + " (tolerated: " + maxErrors + ")");
+            assertSlo("throughput (items/sec)", itemsPerSecond, minItemsPerSecond, true);
+            assertSlo("p99 publish latency (ms)", histogram.getMillisAtPercentile(99), maxP99Millis, false);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the configuration of the node: persistent, with the open publish model, and holding up to the given
+     * number of items, unless that is 0.
+     */
+    private FillableConfigureForm getConfiguration(int maxItems) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final FillableConfigureForm config = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+        config.setPersistentItems(true);
+        config.setPublishModel(PublishModel.open);
+        if (maxItems > 0) {
+            config.setMaxItems(maxItems);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the token that identifies the publication of an item, which is the description of its payload.
+     */
+    private static String getToken(Item item) {
+        if (item instanceof PayloadItem && ((PayloadItem<?>) item).getPayload() instanceof GeoLocation) {
+            return ((GeoLocation) ((PayloadItem<?>) item).getPayload()).getDescription();
+        }
+        return String.valueOf(item.toXML());
+    }
+
+    /**
+     * The publications to one item ID that were acknowledged, or of which the outcome is unknown.
+     */
+    private static final class HotItem {
+
+        private final String itemId;
+
+        // The time at which every acknowledged publication was acknowledged, by token.
+        private final Map<String, Long> ackedNanosByToken = new ConcurrentHashMap<>();
+
+        private final AtomicReference<Publication> lastAcknowledged = new AtomicReference<>();
+
+        private final AtomicLong lastSentNanos = new AtomicLong(Long.MIN_VALUE);
+
+        // The publications that were sent, but not answered in time.
+        private final Set<String> unacknowledgedTokens = ConcurrentHashMap.newKeySet();
+
+        private HotItem(String itemId) {
+            this.itemId = itemId;
+        }
+
+        private void acknowledged(String token, long sentNanos, long ackedNanos) {
+            ackedNanosByToken.put(token, ackedNanos);
+            lastSentNanos.accumulateAndGet(sentNanos, Math::max);
+            final Publication publication = new Publication(token, ackedNanos);
+            lastAcknowledged.accumulateAndGet(publication, (a, b) -> a == null || b.ackedNanos > a.ackedNanos ? b : a);
+        }
+
+        private void unacknowledged(String token) {
+            unacknowledgedTokens.add(token);
+        }
+
+        /**
+         * Checks if a publication may have been processed last: if it was acknowledged before the last publication was
+         * sent, the last publication must have been processed after it. A publication that was not answered in time
+         * may have been processed at any moment after it was sent.
+         */
+        private boolean couldBeLast(String token) {
+            if (unacknowledgedTokens.contains(token)) {
+                return true;
+            }
+            final Long ackedNanos = ackedNanosByToken.get(token);
+            return ackedNanos != null && ackedNanos >= lastSentNanos.get();
+        }
+    }
+
+    private static final class Publication {
+
+        private final String token;
+
+        private final long ackedNanos;
+
+        private Publication(String token, long ackedNanos) {
+            this.token = token;
+            this.ackedNanos = ackedNanos;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+
+import org.igniterealtime.smack.inttest.AbstractSmackIntegrationTest;
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Executes the tests of {@link PubSubIntegrationTest} concurrently, rather than one after the other.
+ *
+ * <p>This mode is enabled by setting <code>sinttest.pubsub.parallel.enabled</code> to <code>true</code>, in which case
+ * {@link PubSubIntegrationTest} itself is skipped. Each test is given its own three connections (and thus accounts)
+ * from the {@link PubSubConnectionPool}, which is populated before any test starts, and its own test run ID, which
+ * is derived from the ID of this run. As the node names used by the tests are based on the test run ID, tests do not
+ * interfere with each other's nodes. The number of tests that execute at the same time can be limited with
+ * <code>sinttest.pubsub.parallel.threads</code> (default: all tests at once).</p>
+ *
+ * <p>The results of the individual tests are logged. This test fails if any of them failed.</p>
+ */
+public class PubSubParallelIntegrationTest extends AbstractSmackIntegrationTest {
+
+    public static final String SETTINGS = "parallel";
+
+    private final SmackIntegrationTestEnvironment environment;
+
+    public PubSubParallelIntegrationTest(SmackIntegrationTestEnvironment environment) throws TestNotPossibleException {
+        super(environment);
+        if (!isEnabled()) {
+            throw new TestNotPossibleException("Parallel execution of PubSub tests is not enabled (set '" + PubSubBenchmarkConfiguration.PROPERTY_PREFIX + SETTINGS + ".enabled' to 'true').");
+        }
+        this.environment = environment;
+    }
+
+    /**
+     * Checks if the tests of {@link PubSubIntegrationTest} are to be executed concurrently.
+     *
+     * @return true if parallel execution is enabled.
+     */
+    static boolean isEnabled() {
+        return PubSubBenchmarkConfiguration.getBoolean(SETTINGS, "enabled", false);
+    }
+
+    /**
+     * Executes all tests of {@link PubSubIntegrationTest} concurrently, and asserts that none of them failed.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation while creating connections.
+     * @throws IOException if an I/O error occurred while creating connections.
+     * @throws XMPPException if an XMPP protocol error was received while creating connections.
+     * @throws ExecutionException if a test could not be executed.
+     */
+    @SmackIntegrationTest
+    public void parallelPubSubIntegrationTests() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Method> methods = PubSubTestMethodRunner.getTestMethods(PubSubIntegrationTest.class);
+        final int threads = Math.max(1, PubSubBenchmarkConfiguration.getInt(SETTINGS, "threads", methods.size()));
+
+        // Populate the pool before starting any test, so that account creation does not skew the durations.
+        final List<XMPPConnection> connections = PubSubConnectionPool.getInstanceFor(environment).getConnections(3 * methods.size());
+
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<PubSubTestMethodRunner.Result> results = new ArrayList<>();
+        try {
+            final List<Future<PubSubTestMethodRunner.Result>> futures = new ArrayList<>();
+            for (int i = 0; i < methods.size(); i++) {
+                final Method method = methods.get(i);
+                final List<XMPPConnection> own = connections.subList(3 * i, 3 * i + 3);
+                final String derivedTestRunId = testRunId + '-' + i;
+                futures.add(executor.submit(() -> PubSubTestMethodRunner.run(
+                    () -> new PubSubIntegrationTest(environment, own.get(0), own.get(1), own.get(2), derivedTestRunId), method)));
+            }
+            for (Future<PubSubTestMethodRunner.Result> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        AssertionError failure = null;
+        int passed = 0;
+        int notPossible = 0;
+        for (PubSubTestMethodRunner.Result result : results) {
+            switch (result.getOutcome()) {
+            case PASSED:
+                passed++;
+                LOGGER.info(result.toString());
+                break;
+            case NOT_POSSIBLE:
+                notPossible++;
+                LOGGER.info(result.toString());
+                break;
+            case FAILED:
+                LOGGER.log(Level.WARNING, result.toString(), result.getCause());
+                if (failure == null) {
+                    failure = new AssertionError("One or more PubSub tests failed. First failure: " + result, result.getCause());
+                } else {
+                    failure.addSuppressed(result.getCause());
+                }
+                break;
+            }
+        }
+        LOGGER.info("Executed " + results.size() + " PubSub tests on " + threads + " threads in " + durationMillis
+            + " ms. Passed: " + passed + ", not possible: " + notPossible + ", failed: " + (results.size() - passed - notPossible));
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+
+import org.igniterealtime.smack.inttest.AbstractSmackIntegrationTest;
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Executes the tests of {@link PubSubIntegrationTest} one after the other, recording a {@link ClientProfile} of each
+ * test: the CPU time and heap memory that the client used, and the garbage collections that occurred.
+ *
+ * <p>This mode is enabled by setting <code>sinttest.pubsub.profile.enabled</code> to <code>true</code>, in which case
+ * {@link PubSubIntegrationTest} itself is skipped. The tests use the connections and test run ID of the environment,
+ * as they do when executed by the framework. The outcome and profile of every test are logged together, and are
+ * written as a report named <code>profile</code>, which lists for every test its outcome, its duration, its profile,
+ * and the time that the thread executing the test did not use the CPU (<code>waitMillis</code>), which is mostly
+ * spent waiting for the server. Durations and profiles only cover the test method itself, not the creation of the
+ * test instance, which mostly consists of set-up that all tests share. Profiles are not recorded when
+ * <code>sinttest.pubsub.parallel.enabled</code> is also set, as concurrently executing tests would be included in
+ * each other's profiles.</p>
+ *
+ * <p>This test fails if any of the profiled tests failed.</p>
+ */
+public class PubSubProfileIntegrationTest extends AbstractSmackIntegrationTest {
+
+    public static final String SETTINGS = "profile";
+
+    private final SmackIntegrationTestEnvironment environment;
+
+    public PubSubProfileIntegrationTest(SmackIntegrationTestEnvironment environment) throws TestNotPossibleException {
+        super(environment);
+        if (!isEnabled()) {
+            throw new TestNotPossibleException("Profiling of PubSub tests is not enabled (set '" + PubSubBenchmarkConfiguration.PROPERTY_PREFIX + SETTINGS + ".enabled' to 'true').");
+        }
+        if (PubSubParallelIntegrationTest.isEnabled()) {
+            throw new TestNotPossibleException("PubSub tests are not profiled when they are executed concurrently.");
+        }
+        this.environment = environment;
+    }
+
+    /**
+     * Checks if the tests of {@link PubSubIntegrationTest} are to be profiled.
+     *
+     * @return true if profiling is enabled.
+     */
+    static boolean isEnabled() {
+        return PubSubBenchmarkConfiguration.getBoolean(SETTINGS, "enabled", false);
+    }
+
+    /**
+     * Executes and profiles all tests of {@link PubSubIntegrationTest}, and asserts that none of them failed.
+     */
+    @SmackIntegrationTest
+    public void profilePubSubIntegrationTests() {
+        final BenchmarkReport report = new BenchmarkReport(SETTINGS, testRunId);
+        AssertionError failure = null;
+        for (Method method : PubSubTestMethodRunner.getTestMethods(PubSubIntegrationTest.class)) {
+            final PubSubTestMethodRunner.Result result = PubSubTestMethodRunner.run(
+                () -> new PubSubIntegrationTest(environment, conOne, conTwo, conThree, testRunId), method, true);
+
+            final String prefix = method.getName();
+            final ClientProfile profile = result.getProfile();
+            report.put(prefix + ".outcome", result.getOutcome())
+                .put(prefix + ".durationMillis", result.getDurationNanos() / 1_000_000d);
+            if (profile != null) {
+                profile.addTo(report, prefix);
+            }
+            if (profile != null && profile.getTestThreadCpuNanos() >= 0) {
+                report.put(prefix + ".waitMillis", (result.getDurationNanos() - profile.getTestThreadCpuNanos()) / 1_000_000d);
+            }
+
+            if (result.getOutcome() == PubSubTestMethodRunner.Outcome.FAILED) {
+                LOGGER.log(Level.WARNING, result.toString(), result.getCause());
+                if (failure == null) {
+                    failure = new AssertionError("One or more PubSub tests failed. First failure: " + result, result.getCause());
+                } else {
+                    failure.addSuppressed(result.getCause());
+                }
+            } else {
+                LOGGER.info(result.toString());
+            }
+        }
+        report.publish();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
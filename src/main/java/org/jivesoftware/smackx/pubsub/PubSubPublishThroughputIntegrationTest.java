@@ -0,0 +1,224 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures the sustained rate at which a PubSub service accepts published items, and the round-trip latency of the
+ * publish requests.
+ *
+ * <p>This benchmark is enabled by adding <code>publishThroughput</code> to <code>sinttest.pubsub.benchmarks</code>.
+ * It is configured with these <code>sinttest.pubsub.publishThroughput.*</code> properties:</p>
+ * <ul>
+ *     <li><code>nodes</code> - number of nodes to publish to (default 8)</li>
+ *     <li><code>connections</code> - number of publishing connections (default 3, at most one per node)</li>
+ *     <li><code>threadsPerConnection</code> - number of concurrent publishers per connection (default 4)</li>
+ *     <li><code>window</code> - when larger than zero, the publishers of a connection share a
+ *     {@link PipelinedPublisher} with this many publish requests in flight, instead of each waiting for the response
+ *     to a request before sending the next one (default 0)</li>
+ *     <li><code>payloadSize</code> - number of characters in each item's payload (default 64)</li>
+ *     <li><code>warmupSeconds</code> - duration of the unmeasured warm-up phase (default 5)</li>
+ *     <li><code>durationSeconds</code> - duration of the measured phase (default 30)</li>
+ *     <li><code>slo.minItemsPerSecond</code>, <code>slo.p50Millis</code>, <code>slo.p99Millis</code>,
+ *     <code>slo.p999Millis</code> - service level objectives that fail the test when missed (default: not checked)</li>
+ *     <li><code>slo.maxErrors</code> - number of failed publish requests that is tolerated (default 0)</li>
+ * </ul>
+ */
+public class PubSubPublishThroughputIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "publishThroughput";
+
+    public PubSubPublishThroughputIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Publishes items to a number of nodes from several connections concurrently, for a fixed duration, and asserts
+     * that the configured throughput and latency objectives are met.
+     *
+     * <p>Every node is owned by one of the publishing connections, which only publishes to the nodes that it owns.
+     * This allows the benchmark to run against the default node configuration, in which only owners and publishers
+     * are allowed to publish.</p>
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a publisher terminated unexpectedly.
+     */
+    @SmackIntegrationTest
+    public void publishThroughputTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final int nodeCount = getIntSetting("nodes", 8);
+        final int connectionCount = Math.min(getIntSetting("connections", 3), nodeCount);
+        final int threadsPerConnection = getIntSetting("threadsPerConnection", 4);
+        final int window = getIntSetting("window", 0);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final int warmupSeconds = getIntSetting("warmupSeconds", 5);
+        final int durationSeconds = getIntSetting("durationSeconds", 30);
+        final double minItemsPerSecond = getDoubleSetting("slo.minItemsPerSecond", 0);
+        final double maxP50Millis = getDoubleSetting("slo.p50Millis", 0);
+        final double maxP99Millis = getDoubleSetting("slo.p99Millis", 0);
+        final double maxP999Millis = getDoubleSetting("slo.p999Millis", 0);
+        final int maxErrors = getIntSetting("slo.maxErrors", 0);
+
+        final List<XMPPConnection> connections = getConnections(connectionCount);
+        final List<List<String>> nodeIdsByConnection = new ArrayList<>();
+        final List<PubSubNodeFixture> fixtures = new ArrayList<>();
+        for (int i = 0; i < connectionCount; i++) {
+            nodeIdsByConnection.add(new ArrayList<>());
+            fixtures.add(new PubSubNodeFixture(getPubSubManager(connections.get(i))));
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            nodeIdsByConnection.get(i % connectionCount).add(nodename("node" + i));
+        }
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        // Publications that were both sent and acknowledged within the measured phase. Publications that were sent in
+        // it, but acknowledged after it ended, are part of the latency distribution, but not of the throughput.
+        final AtomicLong completed = new AtomicLong();
+        final ExecutorService executor = PubSubActors.newExecutor(connectionCount * threadsPerConnection);
+        try {
+            final List<List<LeafNode>> nodesByConnection = new ArrayList<>();
+            for (int i = 0; i < connectionCount; i++) {
+                nodesByConnection.add(fixtures.get(i).createNodes(nodeIdsByConnection.get(i)));
+            }
+
+            final String description = StringUtils.insecureRandomString(payloadSize);
+            final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            final List<Future<Void>> publishers = new ArrayList<>();
+            final List<PipelinedPublisher> pipelines = new ArrayList<>();
+            for (int c = 0; c < connectionCount; c++) {
+                final List<LeafNode> nodes = nodesByConnection.get(c);
+                final PipelinedPublisher pipeline = window > 0 ? new PipelinedPublisher(connections.get(c), window) : null;
+                if (pipeline != null) {
+                    pipelines.add(pipeline);
+                }
+                for (int t = 0; t < threadsPerConnection; t++) {
+                    final int offset = t;
+                    final Callable<Void> publisher = () -> {
+                        for (long n = offset; ; n++) {
+                            final long start = System.nanoTime();
+                            if (start >= measureEnd) {
+                                return null;
+                            }
+                            final LeafNode node = nodes.get((int) (n % nodes.size()));
+                            final PayloadItem<GeoLocation> item = new PayloadItem<>(GeoLocation.builder().setDescription(description).build());
+                            if (pipeline != null) {
+                                final boolean measured = start >= measureStart;
+                                pipeline.publish(node, item).whenComplete((ack, e) -> {
+                                    if (!measured) {
+                                        return;
+                                    }
+                                    if (e != null) {
+                                        if (errors.getAndIncrement() == 0) {
+                                            LOGGER.log(Level.WARNING, "Publishing to " + node.getId() + " failed.", e);
+                                        }
+                                    } else {
+                                        histogram.recordNanos(ack.getLatencyNanos());
+                                        if (ack.getAckedNanos() < measureEnd) {
+                                            completed.incrementAndGet();
+                                        }
+                                    }
+                                });
+                                continue;
+                            }
+                            try {
+                                node.publish(item);
+                            } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                                if (start >= measureStart && errors.getAndIncrement() == 0) {
+                                    LOGGER.log(Level.WARNING, "Publishing to " + node.getId() + " failed.", e);
+                                }
+                                continue;
+                            }
+                            if (start >= measureStart) {
+                                final long end = System.nanoTime();
+                                histogram.recordNanos(end - start);
+                                if (end < measureEnd) {
+                                    completed.incrementAndGet();
+                                }
+                            }
+                        }
+                    };
+                    publishers.add(executor.submit(publisher));
+                }
+            }
+
+            for (Future<Void> publisher : publishers) {
+                publisher.get();
+            }
+            for (PipelinedPublisher pipeline : pipelines) {
+                assertTrue(pipeline.awaitAnswers(connections.get(0).getReplyTimeout(), TimeUnit.MILLISECONDS), "Not all publish requests were answered in time.");
+            }
+
+            final double itemsPerSecond = (double) completed.get() / durationSeconds;
+            final BenchmarkReport report = newReport()
+                .put("nodes", nodeCount)
+                .put("connections", connectionCount)
+                .put("threadsPerConnection", threadsPerConnection)
+                .put("window", window)
+                .put("outOfOrderAnswers", pipelines.stream().mapToLong(PipelinedPublisher::getOutOfOrderAnswers).sum())
+                .put("payloadSize", payloadSize)
+                .put("durationSeconds", durationSeconds)
+                .put("itemsPerSecond", itemsPerSecond)
+                .put("acknowledgedAfterEnd", histogram.getCount() - completed.get())
+                .put("errors", errors.get())
+                .put("publish", histogram);
+            report.publish();
+
+            assertTrue(errors.get() <= maxErrors, "Publish requests failed: " + errors.get() + " (tolerated: " + maxErrors + ")");
+            assertSlo("throughput (items/sec)", itemsPerSecond, minItemsPerSecond, true);
+            assertSlo("p50 publish latency (ms)", histogram.getMillisAtPercentile(50), maxP50Millis, false);
+            assertSlo("p99 publish latency (ms)", histogram.getMillisAtPercentile(99), maxP99Millis, false);
+            assertSlo("p99.9 publish latency (ms)", histogram.getMillisAtPercentile(99.9), maxP999Millis, false);
+        } finally {
+            executor.shutdownNow();
+            for (PubSubNodeFixture fixture : fixtures) {
+                fixture.close();
+            }
+        }
+    }
+}
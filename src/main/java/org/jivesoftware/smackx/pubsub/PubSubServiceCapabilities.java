@@ -0,0 +1,199 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
+
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.jxmpp.jid.DomainBareJid;
+
+/**
+ * A run-wide snapshot of the capabilities of the PubSub service of an XMPP domain, which the tests and benchmarks use
+ * to decide whether they are possible.
+ *
+ * <p>Finding the PubSub service, discovering its features and checking whether nodes can be created each take one or
+ * more round-trips (the latter even creates and deletes a node). As the outcome does not change during a test run,
+ * these are done once per XMPP domain, using the first connection that asks for the snapshot, after which every test
+ * class instance re-uses the result.</p>
+ *
+ * <p>The snapshot is written as a report named <code>capabilities</code>, which lists the service, its identities and
+ * features, and every decision not to execute a test that was based on the snapshot (see
+ * {@link #notPossible(String, String)}). The report is published again when a new decision is added.</p>
+ */
+public final class PubSubServiceCapabilities {
+
+    public static final String REPORT = "capabilities";
+
+    private static final Logger LOGGER = Logger.getLogger(PubSubServiceCapabilities.class.getName());
+
+    private static final Map<DomainBareJid, PubSubServiceCapabilities> SNAPSHOTS = new HashMap<>();
+
+    private final DomainBareJid pubSubService;
+
+    private final Set<String> features;
+
+    private final boolean canCreateNodesAndPublishItems;
+
+    private final BenchmarkReport report;
+
+    private final Set<String> gates = new TreeSet<>();
+
+    private PubSubServiceCapabilities(DomainBareJid pubSubService, Set<String> features, boolean canCreateNodesAndPublishItems, BenchmarkReport report) {
+        this.pubSubService = pubSubService;
+        this.features = Collections.unmodifiableSet(features);
+        this.canCreateNodesAndPublishItems = canCreateNodesAndPublishItems;
+        this.report = report;
+    }
+
+    /**
+     * Returns the capabilities of the PubSub service of the XMPP domain of a connection, discovering them if that was
+     * not done before in this run.
+     *
+     * @param connection the connection to use for discovery. Node creation is checked for the account of this
+     *                   connection.
+     * @param testRunId the ID of the test run, used to name the report.
+     * @return the capabilities snapshot.
+     * @throws NoResponseException if there was no response from the remote entity.
+     * @throws XMPPErrorException if there was an XMPP error returned.
+     * @throws NotConnectedException if the XMPP connection is not connected.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public static PubSubServiceCapabilities getInstanceFor(XMPPConnection connection, String testRunId)
+            throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final DomainBareJid domain = connection.getXMPPServiceDomain();
+        synchronized (SNAPSHOTS) {
+            final PubSubServiceCapabilities cached = SNAPSHOTS.get(domain);
+            if (cached != null) {
+                return cached;
+            }
+            final PubSubServiceCapabilities discovered = discover(connection, testRunId);
+            SNAPSHOTS.put(domain, discovered);
+            return discovered;
+        }
+    }
+
+    private static PubSubServiceCapabilities discover(XMPPConnection connection, String testRunId)
+            throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final DomainBareJid service = PubSubManager.getPubSubService(connection);
+        final Set<String> features = new TreeSet<>();
+        final List<String> identities = new ArrayList<>();
+        boolean canCreateNodes = false;
+        if (service != null) {
+            final PubSubManager pubSubManager = PubSubManager.getInstanceFor(connection, service);
+            final DiscoverInfo info = pubSubManager.getSupportedFeatures();
+            for (DiscoverInfo.Feature feature : info.getFeatures()) {
+                features.add(feature.getVar());
+            }
+            for (DiscoverInfo.Identity identity : info.getIdentities()) {
+                identities.add(identity.getCategory() + '/' + identity.getType());
+            }
+            canCreateNodes = pubSubManager.canCreateNodesAndPublishItems();
+        }
+
+        final BenchmarkReport report = new BenchmarkReport(REPORT, testRunId)
+            .put("xmppDomain", connection.getXMPPServiceDomain())
+            .put("pubSubService", service)
+            .put("identities", identities)
+            .put("canCreateNodesAndPublishItems", canCreateNodes)
+            .put("features", features);
+        report.publish();
+        return new PubSubServiceCapabilities(service, features, canCreateNodes, report);
+    }
+
+    /**
+     * Returns the address of the PubSub service.
+     *
+     * @return the service address, or null if the XMPP domain does not offer a PubSub service.
+     */
+    public DomainBareJid getPubSubService() {
+        return pubSubService;
+    }
+
+    /**
+     * Returns the features that the PubSub service advertises.
+     *
+     * @return an unmodifiable, sorted set of feature namespaces.
+     */
+    public Set<String> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Checks if the PubSub service advertises a feature.
+     *
+     * @param feature the feature.
+     * @return true if the feature is supported.
+     */
+    public boolean supports(PubSubFeature feature) {
+        return features.contains(feature.toString());
+    }
+
+    public boolean canCreateNodesAndPublishItems() {
+        return canCreateNodesAndPublishItems;
+    }
+
+    /**
+     * Returns the address of the PubSub service, provided that it allows the creation of nodes.
+     *
+     * @param gate the name of the test (or test class) that requires the service.
+     * @return the service address.
+     * @throws TestNotPossibleException if there is no PubSub service, or if it does not allow node creation.
+     */
+    public DomainBareJid requireNodeCreation(String gate) throws TestNotPossibleException {
+        if (pubSubService == null) {
+            throw notPossible(gate, "No PubSub service found");
+        }
+        if (!canCreateNodesAndPublishItems) {
+            throw notPossible(gate, "PubSub service does not allow node creation");
+        }
+        return pubSubService;
+    }
+
+    /**
+     * Records that a test is not possible with the capabilities of this snapshot, and creates the exception that is to
+     * be thrown to have the framework skip it.
+     *
+     * @param gate the name of the test (or test class) that is not possible.
+     * @param reason why the test is not possible.
+     * @return the exception to throw.
+     */
+    public TestNotPossibleException notPossible(String gate, String reason) {
+        final boolean added;
+        synchronized (gates) {
+            added = gates.add(gate);
+        }
+        if (added) {
+            LOGGER.fine("Not possible: " + gate + ": " + reason);
+            report.put("notPossible." + gate, reason);
+            report.publish();
+        }
+        return new TestNotPossibleException(reason);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures what it costs the load generator to hold a large number of subscriber sessions, to determine how many
+ * sessions a single machine can simulate.
+ *
+ * <p>The benchmark opens the configured number of sessions, subscribes all of them to one node, and lets a number of
+ * publisher actors publish items to it, using the blocking Smack API. Subscriber and publisher actors run on the
+ * executors of {@link PubSubActors}, so that enabling <code>sinttest.pubsub.virtualThreads.enabled</code> runs them on
+ * virtual threads. The report contains the number of platform threads and the amount of heap used before and after
+ * the sessions were opened, and derived from those, the threads and heap per session. Sessions that already existed in
+ * the {@link PubSubConnectionPool} before this benchmark started are not included in the per-session figures.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>sessionScale</code> to <code>sinttest.pubsub.benchmarks</code>. It is
+ * configured with these <code>sinttest.pubsub.sessionScale.*</code> properties:</p>
+ * <ul>
+ *     <li><code>sessions</code> - number of subscriber sessions (default 1000)</li>
+ *     <li><code>publishers</code> - number of concurrent publisher actors (default 4)</li>
+ *     <li><code>itemsPerPublisher</code> - number of items that each publisher actor publishes (default 5)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests on platform threads
+ *     (default 32)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for the last notification (default 60)</li>
+ *     <li><code>slo.maxThreadsPerSession</code>, <code>slo.maxHeapBytesPerSession</code> - upper bounds on the cost of
+ *     a session that fail the test when exceeded (default: not checked)</li>
+ * </ul>
+ */
+public class PubSubSessionScaleIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "sessionScale";
+
+    public PubSubSessionScaleIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Opens many subscriber sessions, publishes items to all of them, and reports the threads and heap per session.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription or publish request failed.
+     */
+    @SmackIntegrationTest
+    public void sessionScaleTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final int sessions = getIntSetting("sessions", 1000);
+        final int publishers = Math.max(1, getIntSetting("publishers", 4));
+        final int itemsPerPublisher = getIntSetting("itemsPerPublisher", 5);
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 60);
+        final double maxThreadsPerSession = getDoubleSetting("slo.maxThreadsPerSession", 0);
+        final double maxHeapBytesPerSession = getDoubleSetting("slo.maxHeapBytesPerSession", 0);
+
+        final PubSubConnectionPool pool = PubSubConnectionPool.getInstanceFor(environment);
+        ResourceSnapshot.resetPeakThreads();
+        final ResourceSnapshot before = ResourceSnapshot.take();
+        final int existingSessions = pool.size();
+
+        // The first connection of the pool is the publisher. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(sessions + 1).subList(1, sessions + 1);
+        final ResourceSnapshot connected = ResourceSnapshot.take();
+        final int createdSessions = pool.size() - existingSessions;
+
+        final String nodename = nodename("sessions" + sessions);
+        final String description = StringUtils.insecureRandomString(64);
+        final ResourceSnapshot active;
+        final PubSubSubscriberGroup group = new PubSubSubscriberGroup(subscribers, pubSubService, nodename);
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            final LeafNode node = fixture.createNode(nodename);
+            group.subscribe(subscribeConcurrency);
+
+            final ExecutorService executor = PubSubActors.newExecutor(publishers);
+            try {
+                final List<Future<Void>> actors = new ArrayList<>();
+                for (int p = 0; p < publishers; p++) {
+                    final String prefix = "publisher" + p + "-item";
+                    actors.add(executor.submit(() -> {
+                        for (int i = 0; i < itemsPerPublisher; i++) {
+                            final String itemId = prefix + i;
+                            group.published(itemId);
+                            node.publish(new PayloadItem<>(itemId, GeoLocation.builder().setDescription(description).build()));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<Void> actor : actors) {
+                    actor.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            group.awaitDeliveries((long) publishers * itemsPerPublisher, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+            active = ResourceSnapshot.take();
+        } finally {
+            group.close();
+        }
+
+        final long expected = (long) publishers * itemsPerPublisher * sessions;
+        final long missing = Math.max(0, expected - group.getTotalDeliveries());
+        final double threadsPerSession = createdSessions == 0 ? 0 : (double) (connected.getLiveThreads() - before.getLiveThreads()) / createdSessions;
+        final double heapBytesPerSession = createdSessions == 0 ? 0 : (double) (connected.getUsedHeapBytes() - before.getUsedHeapBytes()) / createdSessions;
+
+        final BenchmarkReport report = newReport()
+            .put("javaVersion", System.getProperty("java.version"))
+            .put("virtualThreads", PubSubActors.isUsingVirtualThreads())
+            .put("sessions", sessions)
+            .put("createdSessions", createdSessions)
+            .put("threads.before", before.getLiveThreads())
+            .put("threads.connected", connected.getLiveThreads())
+            .put("threads.active", active.getLiveThreads())
+            .put("threads.peak", active.getPeakThreads())
+            .put("heapBytes.before", before.getUsedHeapBytes())
+            .put("heapBytes.connected", connected.getUsedHeapBytes())
+            .put("heapBytes.active", active.getUsedHeapBytes())
+            .put("threadsPerSession", threadsPerSession)
+            .put("heapBytesPerSession", heapBytesPerSession)
+            .put("missing", missing)
+            .put("latency", group.getLatencies());
+        report.publish();
+
+        assertTrue(missing == 0, "Not all subscribers received all notifications within " + deliveryTimeoutSeconds + " seconds (missing: " + missing + ").");
+        if (createdSessions > 0) {
+            assertSlo("platform threads per session", threadsPerSession, maxThreadsPerSession, false);
+            assertSlo("heap bytes per session", heapBytesPerSession, maxHeapBytesPerSession, false);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+
+import org.jivesoftware.smackx.disco.packet.DiscoverItems;
+
+import org.igniterealtime.smack.inttest.AbstractSmackIntegrationTest;
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+import org.jxmpp.jid.DomainBareJid;
+
+/**
+ * Executes the tests of {@link PubSubIntegrationTest} over and over again for a configured duration, to detect
+ * resource drift in the service that only becomes apparent after many create, subscribe, publish, unsubscribe and
+ * delete cycles.
+ *
+ * <p>This mode is enabled by setting <code>sinttest.pubsub.soak.enabled</code> to <code>true</code>, in which case
+ * {@link PubSubIntegrationTest} itself is skipped. Every iteration executes all tests one after the other, using the
+ * connections of the environment and a test run ID that is derived from the ID of this run and the iteration number,
+ * so that every iteration uses fresh node names. The following settings apply:</p>
+ * <ul>
+ *     <li><code>sinttest.pubsub.soak.durationMinutes</code>: for how long iterations are started (default: 60).</li>
+ *     <li><code>sinttest.pubsub.soak.sampleSeconds</code>: the length of the windows in which samples are taken
+ *     (default: 60).</li>
+ *     <li><code>sinttest.pubsub.soak.growthThresholdPercent</code>: the growth that is flagged as drift (default:
+ *     20).</li>
+ * </ul>
+ *
+ * <p>For every window, the median and 99th percentile of the test durations are sampled, as are the client heap in use
+ * after the most recent garbage collection, and the number of stanza listeners that are registered through
+ * {@link ScopedStanzaListener} on each connection. A test duration only covers the test method: it excludes the
+ * creation of the test instance, and with it any request whose cost depends on the state of the service as a whole,
+ * rather than on the cycle under test. After every iteration, the nodes of the service are discovered, outside of any
+ * test duration, and nodes that the iteration left behind are reported. At the end of the run, a series is flagged when
+ * the medians of its first, middle and last third of samples increase monotonically, and the last exceeds the first by
+ * more than the growth threshold. The samples, the leftover nodes and the drift flags are written as a report named
+ * <code>soak</code>.</p>
+ *
+ * <p>This test fails if any of the soaked tests failed, if latency or listener drift was flagged, or if nodes were left
+ * behind. Client heap drift is only reported, as it is not caused by the service under test.</p>
+ */
+public class PubSubSoakIntegrationTest extends AbstractSmackIntegrationTest {
+
+    public static final String SETTINGS = "soak";
+
+    private final SmackIntegrationTestEnvironment environment;
+
+    private final PubSubManager pubSubManagerOne;
+
+    public PubSubSoakIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment);
+        if (!isEnabled()) {
+            throw new TestNotPossibleException("Soaking of PubSub tests is not enabled (set '" + PubSubBenchmarkConfiguration.PROPERTY_PREFIX + SETTINGS + ".enabled' to 'true').");
+        }
+        this.environment = environment;
+        final DomainBareJid pubSubService = PubSubServiceCapabilities.getInstanceFor(conOne, testRunId)
+            .requireNodeCreation(PubSubSoakIntegrationTest.class.getSimpleName());
+        pubSubManagerOne = PubSubManager.getInstanceFor(conOne, pubSubService);
+    }
+
+    /**
+     * Checks if the tests of {@link PubSubIntegrationTest} are to be soaked.
+     *
+     * @return true if soak mode is enabled.
+     */
+    static boolean isEnabled() {
+        return PubSubBenchmarkConfiguration.getBoolean(SETTINGS, "enabled", false);
+    }
+
+    /**
+     * Executes all tests of {@link PubSubIntegrationTest} repeatedly, and asserts that none of them failed, that their
+     * durations did not drift upwards, and that no nodes were left behind.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    @SmackIntegrationTest
+    public void soakPubSubIntegrationTests() throws InterruptedException {
+        final long durationNanos = TimeUnit.MINUTES.toNanos(PubSubBenchmarkConfiguration.getInt(SETTINGS, "durationMinutes", 60));
+        final long sampleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, PubSubBenchmarkConfiguration.getInt(SETTINGS, "sampleSeconds", 60)));
+        final double growthThresholdPercent = PubSubBenchmarkConfiguration.getInt(SETTINGS, "growthThresholdPercent", 20);
+        final List<Method> methods = PubSubTestMethodRunner.getTestMethods(PubSubIntegrationTest.class);
+
+        final List<Sample> samples = new ArrayList<>();
+        final Map<String, Integer> failuresByTest = new TreeMap<>();
+        final List<String> leftoverNodes = new ArrayList<>();
+        AssertionError failure = null;
+        long passed = 0;
+        long notPossible = 0;
+
+        final long start = System.nanoTime();
+        long windowStart = start;
+        LatencyHistogram window = new LatencyHistogram();
+        int iteration = 0;
+        while (System.nanoTime() - start < durationNanos) {
+            final String iterationTestRunId = testRunId + "-soak" + iteration;
+            for (Method method : methods) {
+                final PubSubTestMethodRunner.Result result = PubSubTestMethodRunner.run(
+                    () -> new PubSubIntegrationTest(environment, conOne, conTwo, conThree, iterationTestRunId), method);
+                switch (result.getOutcome()) {
+                case PASSED:
+                    passed++;
+                    window.recordNanos(result.getDurationNanos());
+                    break;
+                case NOT_POSSIBLE:
+                    notPossible++;
+                    break;
+                case FAILED:
+                    failuresByTest.merge(result.getTestName(), 1, Integer::sum);
+                    if (failure == null) {
+                        LOGGER.log(Level.WARNING, result.toString(), result.getCause());
+                        failure = new AssertionError("One or more PubSub tests failed while soaking. First failure: " + result, result.getCause());
+                    } else {
+                        LOGGER.warning(result.toString());
+                    }
+                    break;
+                }
+
+                final long now = System.nanoTime();
+                if (now - windowStart >= sampleNanos) {
+                    samples.add(new Sample(now - start, iteration, window, getLiveListenerCounts()));
+                    LOGGER.info("Soak sample " + samples.get(samples.size() - 1));
+                    windowStart = now;
+                    window = new LatencyHistogram();
+                }
+            }
+            leftoverNodes.addAll(findNodesOf(iterationTestRunId));
+            iteration++;
+        }
+        // A partial window would distort the trend, so it is only used when no complete window was sampled.
+        if (samples.isEmpty() && window.getCount() > 0) {
+            samples.add(new Sample(System.nanoTime() - start, iteration - 1, window, getLiveListenerCounts()));
+        }
+
+        final boolean latencyDrift = isMonotonicGrowth(samples.stream().mapToDouble(s -> s.p50Millis).toArray(), growthThresholdPercent);
+        final boolean tailLatencyDrift = isMonotonicGrowth(samples.stream().mapToDouble(s -> s.p99Millis).toArray(), growthThresholdPercent);
+        final boolean heapDrift = isMonotonicGrowth(samples.stream().mapToDouble(s -> s.heapBytes).toArray(), growthThresholdPercent);
+        final boolean listenerDrift = isMonotonicGrowth(samples.stream().mapToDouble(Sample::getLiveListeners).toArray(), growthThresholdPercent);
+
+        final BenchmarkReport report = new BenchmarkReport(SETTINGS, testRunId)
+            .put("iterations", iteration)
+            .put("testsPassed", passed)
+            .put("testsNotPossible", notPossible)
+            .put("testsFailed", failuresByTest.values().stream().mapToInt(Integer::intValue).sum())
+            .put("failuresByTest", failuresByTest)
+            .put("leftoverNodes", leftoverNodes.size())
+            .put("latencyDrift", latencyDrift)
+            .put("tailLatencyDrift", tailLatencyDrift)
+            .put("heapDrift", heapDrift)
+            .put("listenerDrift", listenerDrift);
+        for (int i = 0; i < samples.size(); i++) {
+            samples.get(i).addTo(report, "sample." + i);
+        }
+        report.publish();
+
+        if (!leftoverNodes.isEmpty()) {
+            LOGGER.warning("Soaking left " + leftoverNodes.size() + " nodes behind on " + pubSubManagerOne.getServiceJid() + ": " + leftoverNodes);
+        }
+        if (heapDrift) {
+            LOGGER.warning("Client heap grew monotonically while soaking.");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (listenerDrift) {
+            throw new AssertionError("Stanza listeners that the tests registered were not removed while soaking: "
+                + samples.get(0) + " -> " + samples.get(samples.size() - 1));
+        }
+        if (latencyDrift || tailLatencyDrift) {
+            throw new AssertionError("Test durations grew monotonically by more than " + growthThresholdPercent + "% while soaking: "
+                + samples.get(0) + " -> " + samples.get(samples.size() - 1));
+        }
+        if (!leftoverNodes.isEmpty()) {
+            throw new AssertionError("Soaking left " + leftoverNodes.size() + " nodes behind: " + leftoverNodes);
+        }
+    }
+
+    /**
+     * Discovers the nodes at the root of the service that carry a test run ID in their name.
+     */
+    private List<String> findNodesOf(String iterationTestRunId) throws InterruptedException {
+        final List<String> result = new ArrayList<>();
+        try {
+            for (DiscoverItems.Item item : pubSubManagerOne.discoverNodes(null).getItems()) {
+                // The ID of iteration 1 is a prefix of that of iteration 10, so match up to the end of the name.
+                if (item.getNode() != null && item.getNode().endsWith(iterationTestRunId)) {
+                    result.add(item.getNode());
+                }
+            }
+        } catch (NoResponseException | XMPPErrorException | NotConnectedException e) {
+            LOGGER.log(Level.FINE, "Unable to discover the nodes of " + pubSubManagerOne.getServiceJid() + ".", e);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a series of samples grows monotonically: the medians of its first, middle and last third must be
+     * increasing, and the last must exceed the first by more than a threshold.
+     *
+     * @param values the samples, in the order in which they were taken.
+     * @param thresholdPercent the minimal growth, as a percentage of the first median.
+     * @return true if the series has at least three samples and grows monotonically.
+     */
+    static boolean isMonotonicGrowth(double[] values, double thresholdPercent) {
+        if (values.length < 3) {
+            return false;
+        }
+        final int third = values.length / 3;
+        final double first = median(Arrays.copyOfRange(values, 0, third));
+        final double middle = median(Arrays.copyOfRange(values, third, values.length - third));
+        final double last = median(Arrays.copyOfRange(values, values.length - third, values.length));
+        return first < middle && middle < last && last > first * (1 + thresholdPercent / 100);
+    }
+
+    private static double median(double[] values) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        final int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Returns the number of stanza listeners that are registered through {@link ScopedStanzaListener} on each of the
+     * connections that the soaked tests use.
+     */
+    private int[] getLiveListenerCounts() {
+        return new int[] {ScopedStanzaListener.getLiveListenerCount(conOne), ScopedStanzaListener.getLiveListenerCount(conTwo),
+            ScopedStanzaListener.getLiveListenerCount(conThree)};
+    }
+
+    /**
+     * Returns the amount of heap memory that was in use after the most recent garbage collection, which, unlike the
+     * current usage, does not include garbage that has not been collected yet.
+     */
+    private static long getHeapAfterLastGc() {
+        long result = 0;
+        boolean supported = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            final MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (usage != null) {
+                result += usage.getUsed();
+                supported = true;
+            }
+        }
+        return supported ? result : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class Sample {
+
+        private final long elapsedSeconds;
+
+        private final int iteration;
+
+        private final long count;
+
+        private final double p50Millis;
+
+        private final double p99Millis;
+
+        private final long heapBytes;
+
+        // The number of live stanza listeners on conOne, conTwo and conThree.
+        private final int[] liveListeners;
+
+        private Sample(long elapsedNanos, int iteration, LatencyHistogram window, int[] liveListeners) {
+            this.elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(elapsedNanos);
+            this.iteration = iteration;
+            this.count = window.getCount();
+            this.p50Millis = window.getMillisAtPercentile(50);
+            this.p99Millis = window.getMillisAtPercentile(99);
+            this.heapBytes = getHeapAfterLastGc();
+            this.liveListeners = liveListeners;
+        }
+
+        private int getLiveListeners() {
+            return Arrays.stream(liveListeners).sum();
+        }
+
+        private void addTo(BenchmarkReport report, String prefix) {
+            report.put(prefix + ".elapsedSeconds", elapsedSeconds)
+                .put(prefix + ".iteration", iteration)
+                .put(prefix + ".tests", count)
+                .put(prefix + ".p50Millis", p50Millis)
+                .put(prefix + ".p99Millis", p99Millis)
+                .put(prefix + ".heapBytes", heapBytes)
+                .put(prefix + ".liveListeners.conOne", liveListeners[0])
+                .put(prefix + ".liveListeners.conTwo", liveListeners[1])
+                .put(prefix + ".liveListeners.conThree", liveListeners[2]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "after %d s (iteration %d): %d tests, p50 %.3f ms, p99 %.3f ms, heap %d bytes, listeners %s",
+                elapsedSeconds, iteration, count, p50Millis, p99Millis, heapBytes, Arrays.toString(liveListeners));
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.packet.NamedElement;
+import org.jivesoftware.smack.packet.Stanza;
+
+import org.jxmpp.jid.BareJid;
+
+/**
+ * A group of connections that are all subscribed to the same node, and that record the latency with which they
+ * receive the notifications for items published to that node.
+ *
+ * <p>Publishers register the moment at which they publish an item through {@link #published(String)}. When a
+ * subscriber receives the notification for that item, the time that passed since is recorded in a shared
+ * {@link LatencyHistogram}. Notifications are processed on the connection's synchronous listener thread, and only
+ * require a map lookup, so that the measurement itself adds as little delay as possible.</p>
+ *
+ * <p>Every subscriber counts an item once. A notification for an item that the subscriber already received is counted
+ * as a duplicate, and not as a delivery, so that duplicates cannot make up for items that were missed.</p>
+ */
+public final class PubSubSubscriberGroup implements AutoCloseable {
+
+    private final List<XMPPConnection> subscribers;
+
+    private final BareJid pubSubService;
+
+    private final String nodeId;
+
+    private final Map<String, Publication> publications = new ConcurrentHashMap<>();
+
+    private final AtomicInteger publicationCount = new AtomicInteger();
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private final AtomicLong[] deliveries;
+
+    private final AtomicLong[] maxLatencies;
+
+    // The publications that each subscriber was notified of, by index. Each is guarded by its own monitor.
+    private final BitSet[] notified;
+
+    private final AtomicLong totalDeliveries = new AtomicLong();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private final List<ScopedStanzaListener> listeners = new ArrayList<>();
+
+    private volatile long subscribeNanos;
+
+    /**
+     * Creates a new group. Subscriptions are not made until {@link #subscribe(int)} is invoked.
+     *
+     * @param subscribers the connections of the subscribers, each for a different account.
+     * @param pubSubService the address of the PubSub service.
+     * @param nodeId the node to subscribe to.
+     */
+    public PubSubSubscriberGroup(List<XMPPConnection> subscribers, BareJid pubSubService, String nodeId) {
+        this.subscribers = new ArrayList<>(subscribers);
+        this.pubSubService = pubSubService;
+        this.nodeId = nodeId;
+        this.deliveries = new AtomicLong[subscribers.size()];
+        this.maxLatencies = new AtomicLong[subscribers.size()];
+        this.notified = new BitSet[subscribers.size()];
+        for (int i = 0; i < deliveries.length; i++) {
+            deliveries[i] = new AtomicLong();
+            maxLatencies[i] = new AtomicLong();
+            notified[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Registers a notification listener on every subscriber, and subscribes all of them to the node. Every subscriber
+     * looks up the node before any subscription request is sent, so that the disco#info request of that lookup is not
+     * included in {@link #getSubscribeNanos()}.
+     *
+     * @param concurrency the maximum number of subscription requests that is in flight at any time. This is not
+     *                    limited when actors run on virtual threads (see {@link PubSubActors}).
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    public void subscribe(int concurrency) throws InterruptedException, ExecutionException {
+        final ExecutorService executor = PubSubActors.newExecutor(Math.min(concurrency, subscribers.size()));
+        try {
+            final List<Future<Node>> lookups = new ArrayList<>();
+            for (int i = 0; i < subscribers.size(); i++) {
+                final XMPPConnection subscriber = subscribers.get(i);
+                final int subscriberIndex = i;
+                final ScopedStanzaListener listener = ScopedStanzaListener.sync(subscriber, stanza -> onNotification(stanza, subscriberIndex), PubSubEventFilter.items(nodeId));
+                synchronized (listeners) {
+                    listeners.add(listener);
+                }
+                lookups.add(executor.submit(() -> PubSubManager.getInstanceFor(subscriber, pubSubService).getNode(nodeId)));
+            }
+            final List<Node> nodes = new ArrayList<>();
+            for (Future<Node> lookup : lookups) {
+                nodes.add(lookup.get());
+            }
+
+            final long start = System.nanoTime();
+            final List<Future<Subscription>> subscriptions = new ArrayList<>();
+            for (int i = 0; i < subscribers.size(); i++) {
+                final Node node = nodes.get(i);
+                final XMPPConnection subscriber = subscribers.get(i);
+                subscriptions.add(executor.submit(() -> node.subscribe(subscriber.getUser().asEntityBareJid())));
+            }
+            for (Future<Subscription> subscription : subscriptions) {
+                subscription.get();
+            }
+            subscribeNanos = System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the time from sending the first subscription request of {@link #subscribe(int)} until all of them were
+     * answered.
+     *
+     * @return the duration of the subscription requests in nanoseconds, or 0 if the subscribers were not subscribed.
+     */
+    public long getSubscribeNanos() {
+        return subscribeNanos;
+    }
+
+    /**
+     * Records that an item is about to be published. This should be invoked immediately before the publish request is
+     * sent.
+     *
+     * @param itemId the ID of the item that is published.
+     */
+    public void published(String itemId) {
+        publications.put(itemId, new Publication(publicationCount.getAndIncrement(), System.nanoTime()));
+    }
+
+    /**
+     * Waits until every subscriber has received at least the expected number of distinct items.
+     *
+     * @param expectedPerSubscriber the number of items that each subscriber is expected to be notified of.
+     * @param timeout the maximum amount of time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if all notifications were received, false if the timeout elapsed first.
+     * @throws InterruptedException if the calling thread was interrupted.
+     */
+    public boolean awaitDeliveries(long expectedPerSubscriber, long timeout, TimeUnit unit) throws InterruptedException {
+        final long expected = expectedPerSubscriber * subscribers.size();
+        return PubSubActors.awaitCondition(() -> totalDeliveries.get() >= expected, timeout, unit);
+    }
+
+    /**
+     * Returns the latencies between publication and notification, for all subscribers combined.
+     *
+     * @return the notification latencies.
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the total number of distinct notified items, for all subscribers combined.
+     *
+     * @return the number of notified items, excluding duplicates.
+     */
+    public long getTotalDeliveries() {
+        return totalDeliveries.get();
+    }
+
+    /**
+     * Returns the number of notifications for items that the receiving subscriber had already been notified of, for
+     * all subscribers combined.
+     *
+     * @return the number of duplicate item notifications.
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Returns the number of distinct notified items per subscriber, in the order in which the subscribers were
+     * provided.
+     *
+     * @return the number of notified items per subscriber, excluding duplicates.
+     */
+    public long[] getDeliveriesPerSubscriber() {
+        final long[] result = new long[deliveries.length];
+        for (int i = 0; i < deliveries.length; i++) {
+            result[i] = deliveries[i].get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns, per subscriber, the highest latency with which it received a notification. This is the amount by which
+     * a subscriber lagged behind the publisher at worst.
+     *
+     * @return the highest notification latency per subscriber in nanoseconds, in the order in which the subscribers
+     * were provided, or 0 for subscribers that did not receive any notification.
+     */
+    public long[] getMaxLatencyNanosPerSubscriber() {
+        final long[] result = new long[maxLatencies.length];
+        for (int i = 0; i < maxLatencies.length; i++) {
+            result[i] = maxLatencies[i].get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of subscribers in this group.
+     *
+     * @return the group size.
+     */
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * Removes the notification listeners from all subscribers. Subscriptions are not removed: they end when the node
+     * is deleted.
+     */
+    @Override
+    public void close() {
+        synchronized (listeners) {
+            listeners.forEach(ScopedStanzaListener::close);
+            listeners.clear();
+        }
+    }
+
+    private void onNotification(Stanza stanza, int subscriberIndex) {
+        final long received = System.nanoTime();
+        final ItemsExtension items = (ItemsExtension) EventElement.from(stanza).getEvent();
+        final BitSet seen = notified[subscriberIndex];
+        int count = 0;
+        for (NamedElement element : items.getItems()) {
+            if (!(element instanceof Item)) {
+                continue;
+            }
+            final Publication publication = publications.get(((Item) element).getId());
+            if (publication == null) {
+                continue;
+            }
+            synchronized (seen) {
+                if (seen.get(publication.index)) {
+                    duplicates.incrementAndGet();
+                    continue;
+                }
+                seen.set(publication.index);
+            }
+            final long latency = received - publication.nanos;
+            latencies.recordNanos(latency);
+            maxLatencies[subscriberIndex].accumulateAndGet(latency, Math::max);
+            count++;
+        }
+        if (count > 0) {
+            deliveries[subscriberIndex].addAndGet(count);
+            totalDeliveries.addAndGet(count);
+        }
+    }
+
+    /**
+     * The moment at which an item was published, and the position of its publication within this group.
+     */
+    private static final class Publication {
+
+        private final int index;
+
+        private final long nanos;
+
+        private Publication(int index, long nanos) {
+            this.index = index;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smackx.pubsub.packet.PubSub;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures how subscribing, unsubscribing and retrieving subscriptions scale with the number of subscriptions.
+ *
+ * <p>Two dimensions are measured, each in steps of increasing size:</p>
+ * <ul>
+ *     <li><em>per account</em>: a single account subscribes to a growing number of nodes. At every step, the
+ *     subscriptions of the account are retrieved from the service (as a client does when it re-synchronises after
+ *     reconnecting, and as {@link PubSubManager#getSubscriptions()} does).</li>
+ *     <li><em>per node</em>: a growing number of accounts subscribes to a single node. At every step, the owner
+ *     retrieves the subscriptions of the node (as {@link Node#getSubscriptionsAsOwner()} does).</li>
+ * </ul>
+ * <p>Each step subscribes the difference with the previous step, and reports the subscribe rate and latency, and the
+ * latency, size (measured as the size of the re-serialised response) and number of subscriptions of the retrieval.
+ * Once the largest step has been measured, the subscriptions are removed again in the same steps, in reverse order,
+ * and the unsubscribe rate and latency are reported for the step from which they were removed.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>subscriptionManagement</code> to <code>sinttest.pubsub.benchmarks</code>.
+ * It is configured with these <code>sinttest.pubsub.subscriptionManagement.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscriptionsPerAccount</code> - comma-separated numbers of subscriptions held by one account, one step
+ *     per number (default 10,100,1000)</li>
+ *     <li><code>subscribersPerNode</code> - comma-separated numbers of subscribers of one node, one step per number,
+ *     each with an account of its own (default 10,100,1000)</li>
+ *     <li><code>concurrency</code> - number of concurrent subscribe or unsubscribe requests (default 16)</li>
+ *     <li><code>repetitions</code> - number of times the subscriptions are retrieved at every step (default 5)</li>
+ *     <li><code>slo.minOpsPerSecond</code> - minimum subscribe and unsubscribe rate at every step (default: not
+ *     checked)</li>
+ *     <li><code>slo.retrievalP99Millis</code> - maximum 99th percentile of the retrieval latency at every step
+ *     (default: not checked)</li>
+ *     <li><code>slo.maxErrors</code> - number of failed requests that is tolerated (default 0)</li>
+ * </ul>
+ */
+public class PubSubSubscriptionManagementIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "subscriptionManagement";
+
+    /**
+     * A subscribe or unsubscribe request, for the subscription with a particular index within a dimension.
+     */
+    private interface Operation {
+        void perform(int index) throws Exception;
+    }
+
+    /**
+     * Looks up the node that is subscribed to, or unsubscribed from, by the request with a particular index.
+     */
+    private interface Lookup {
+        Node lookup(int index) throws Exception;
+    }
+
+    /**
+     * The measurements of a batch of subscribe or unsubscribe requests.
+     */
+    private static final class Batch {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private double opsPerSecond;
+
+        private void putInto(BenchmarkReport report, String prefix) {
+            report.put(prefix + ".opsPerSecond", opsPerSecond)
+                .put(prefix + ".errors", errors.get())
+                .put(prefix + ".latency", latency);
+        }
+    }
+
+    /**
+     * The measurements of the retrievals of subscriptions at one step.
+     */
+    private static final class Retrieval {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private long bytes;
+
+        private long subscriptions;
+
+        private void putInto(BenchmarkReport report, String prefix) {
+            report.put(prefix + ".retrieval.bytes", bytes)
+                .put(prefix + ".retrieval.subscriptions", subscriptions)
+                .put(prefix + ".retrieval.latency", latency);
+        }
+    }
+
+    private final List<Runnable> sloChecks = new ArrayList<>();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    public PubSubSubscriptionManagementIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Grows the number of subscriptions of an account, and the number of subscribers of a node, in steps, and records
+     * the subscribe, unsubscribe and retrieval performance at every step.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if an actor terminated unexpectedly.
+     */
+    @SmackIntegrationTest
+    public void subscriptionManagementTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final List<Integer> perAccount = new ArrayList<>(new TreeSet<>(PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "subscriptionsPerAccount", 10, 100, 1000)));
+        final List<Integer> perNode = new ArrayList<>(new TreeSet<>(PubSubBenchmarkConfiguration.getIntList(BENCHMARK, "subscribersPerNode", 10, 100, 1000)));
+        final int concurrency = getIntSetting("concurrency", 16);
+        final int repetitions = getIntSetting("repetitions", 5);
+        final int maxErrors = getIntSetting("slo.maxErrors", 0);
+
+        final BenchmarkReport report = newReport()
+            .put("subscriptionsPerAccount", perAccount)
+            .put("subscribersPerNode", perNode)
+            .put("concurrency", concurrency)
+            .put("repetitions", repetitions);
+
+        final ExecutorService executor = PubSubActors.newExecutor(concurrency);
+        try {
+            if (!perAccount.isEmpty()) {
+                measurePerAccount(perAccount, repetitions, executor, report);
+            }
+            if (!perNode.isEmpty()) {
+                measurePerNode(perNode, repetitions, executor, report);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report.publish();
+
+        assertTrue(errors.get() <= maxErrors, "Subscription requests failed: " + errors.get() + " (tolerated: " + maxErrors + ")");
+        for (Runnable sloCheck : sloChecks) {
+            sloCheck.run();
+        }
+    }
+
+    /**
+     * Subscribes one account to a growing number of nodes, retrieving all its subscriptions at every step.
+     */
+    private void measurePerAccount(List<Integer> steps, int repetitions, ExecutorService executor, BenchmarkReport report)
+            throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        // The first connection of the pool owns the nodes. The second one is the subscriber.
+        final XMPPConnection subscriber = getConnections(2).get(1);
+        final PubSubManager manager = getPubSubManager(subscriber);
+        final List<String> nodeIds = new ArrayList<>();
+        for (int i = 0; i < steps.get(steps.size() - 1); i++) {
+            nodeIds.add(nodename("account-node" + i));
+        }
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            fixture.createNodes(nodeIds);
+            final List<Node> nodes = lookup(executor, nodeIds.size(), i -> manager.getNode(nodeIds.get(i)));
+            int subscribed = 0;
+            for (int step : steps) {
+                final String prefix = "perAccount." + step;
+                final Batch subscribe = perform(executor, subscribed, step, i -> nodes.get(i).subscribe(subscriber.getUser().asEntityBareJid()));
+                subscribe.putInto(report, prefix + ".subscribe");
+                subscribed = step;
+
+                final Retrieval retrieval = new Retrieval();
+                for (int r = 0; r < repetitions; r++) {
+                    retrieve(subscriber, PubSubElementType.SUBSCRIPTIONS, null, retrieval);
+                }
+                retrieval.putInto(report, prefix);
+                addSloChecks("account holding " + step + " subscriptions", subscribe, retrieval);
+            }
+            for (int s = steps.size() - 1; s >= 0; s--) {
+                final int from = s == 0 ? 0 : steps.get(s - 1);
+                final Batch unsubscribe = perform(executor, from, steps.get(s), i -> nodes.get(i).unsubscribe(subscriber.getUser().asEntityBareJid().toString()));
+                unsubscribe.putInto(report, "perAccount." + steps.get(s) + ".unsubscribe");
+                addSloChecks("account holding " + steps.get(s) + " subscriptions", unsubscribe, null);
+            }
+        }
+    }
+
+    /**
+     * Subscribes a growing number of accounts to one node, retrieving all subscriptions of the node at every step.
+     */
+    private void measurePerNode(List<Integer> steps, int repetitions, ExecutorService executor, BenchmarkReport report)
+            throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final int largest = steps.get(steps.size() - 1);
+        // The first connection of the pool owns the node. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(largest + 1).subList(1, largest + 1);
+        final String nodeId = nodename("node");
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            fixture.createNode(nodeId);
+            final List<Node> nodes = lookup(executor, largest, i -> getPubSubManager(subscribers.get(i)).getNode(nodeId));
+            int subscribed = 0;
+            for (int step : steps) {
+                final String prefix = "perNode." + step;
+                final Batch subscribe = perform(executor, subscribed, step, i -> nodes.get(i).subscribe(subscribers.get(i).getUser().asEntityBareJid()));
+                subscribe.putInto(report, prefix + ".subscribe");
+                subscribed = step;
+
+                final Retrieval retrieval = new Retrieval();
+                for (int r = 0; r < repetitions; r++) {
+                    retrieve(conOne, PubSubElementType.SUBSCRIPTIONS_OWNER, nodeId, retrieval);
+                }
+                retrieval.putInto(report, prefix);
+                addSloChecks("node with " + step + " subscribers", subscribe, retrieval);
+            }
+            for (int s = steps.size() - 1; s >= 0; s--) {
+                final int from = s == 0 ? 0 : steps.get(s - 1);
+                final Batch unsubscribe = perform(executor, from, steps.get(s), i -> nodes.get(i).unsubscribe(subscribers.get(i).getUser().asEntityBareJid().toString()));
+                unsubscribe.putInto(report, "perNode." + steps.get(s) + ".unsubscribe");
+                addSloChecks("node with " + steps.get(s) + " subscribers", unsubscribe, null);
+            }
+        }
+    }
+
+    /**
+     * Looks up nodes concurrently, before any request is timed. The first lookup of a node by a PubSubManager is a
+     * disco#info request, which would otherwise be included in the latency of the first subscribe request.
+     */
+    private static List<Node> lookup(ExecutorService executor, int count, Lookup lookup) throws InterruptedException, ExecutionException {
+        final List<Future<Node>> lookups = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            lookups.add(executor.submit(() -> lookup.lookup(index)));
+        }
+        final List<Node> nodes = new ArrayList<>();
+        for (Future<Node> node : lookups) {
+            nodes.add(node.get());
+        }
+        return nodes;
+    }
+
+    /**
+     * Performs an operation for every index from <code>from</code> (inclusive) up to <code>to</code> (exclusive),
+     * concurrently, and records the rate and latency of the operations that succeeded.
+     */
+    private Batch perform(ExecutorService executor, int from, int to, Operation operation) throws InterruptedException, ExecutionException {
+        final Batch batch = new Batch();
+        final List<Future<Void>> requests = new ArrayList<>();
+        final long start = System.nanoTime();
+        for (int i = from; i < to; i++) {
+            final int index = i;
+            requests.add(executor.submit(() -> {
+                final long requestStart = System.nanoTime();
+                try {
+                    operation.perform(index);
+                } catch (XMPPErrorException | NoResponseException | NotConnectedException e) {
+                    if (batch.errors.getAndIncrement() == 0) {
+                        LOGGER.log(Level.WARNING, "Subscription request failed.", e);
+                    }
+                    return null;
+                }
+                batch.latency.recordNanos(System.nanoTime() - requestStart);
+                return null;
+            }));
+        }
+        for (Future<Void> request : requests) {
+            request.get();
+        }
+        final double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+        batch.opsPerSecond = elapsedSeconds == 0 ? 0 : batch.latency.getCount() / elapsedSeconds;
+        errors.addAndGet(batch.errors.get());
+        return batch;
+    }
+
+    /**
+     * Sends a request for subscriptions, and records the latency, size and number of subscriptions of the response.
+     * Only subscriptions to the nodes of this benchmark are counted, so that subscriptions that an account holds for
+     * other reasons do not affect the result.
+     */
+    private void retrieve(XMPPConnection connection, PubSubElementType type, String nodeId, Retrieval retrieval) throws NoResponseException, XMPPErrorException, NotConnectedException, InterruptedException {
+        final PubSub request = PubSub.createPubsubPacket(pubSubService, IQ.Type.get, new NodeExtension(type, nodeId));
+        final long start = System.nanoTime();
+        final PubSub response = connection.createStanzaCollectorAndSend(request).nextResultOrThrow();
+        retrieval.latency.recordNanos(System.nanoTime() - start);
+        retrieval.bytes = response.toXML().toString().getBytes(StandardCharsets.UTF_8).length;
+        retrieval.subscriptions = 0;
+        final SubscriptionsExtension subscriptions = response.getExtension(type);
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions.getSubscriptions()) {
+            final String node = subscription.getNode() != null ? subscription.getNode() : subscriptions.getNode();
+            if (node != null && node.startsWith("sinttest-" + BENCHMARK + '-') && node.endsWith(testRunId)) {
+                retrieval.subscriptions++;
+            }
+        }
+    }
+
+    /**
+     * Registers the checks of the service level objectives of one step, which are run once the report is published.
+     */
+    private void addSloChecks(String description, Batch batch, Retrieval retrieval) {
+        final double minOpsPerSecond = getDoubleSetting("slo.minOpsPerSecond", 0);
+        final double maxRetrievalP99Millis = getDoubleSetting("slo.retrievalP99Millis", 0);
+        sloChecks.add(() -> {
+            assertSlo(String.format(Locale.ROOT, "%s: subscription requests (ops/sec)", description), batch.opsPerSecond, minOpsPerSecond, true);
+            if (retrieval != null) {
+                assertSlo(String.format(Locale.ROOT, "%s: p99 subscription retrieval latency (ms)", description), retrieval.latency.getMillisAtPercentile(99), maxRetrievalP99Millis, false);
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Executes individual {@link SmackIntegrationTest} methods outside of the framework's own test loop, and records
+ * their outcome in the same categories as the framework does: passed, failed, or not possible.
+ */
+public final class PubSubTestMethodRunner {
+
+    /**
+     * The outcome of the execution of a test method.
+     */
+    public enum Outcome {
+        PASSED,
+        FAILED,
+        NOT_POSSIBLE,
+    }
+
+    /**
+     * The result of the execution of a test method.
+     */
+    public static final class Result {
+
+        private final String testName;
+
+        private final Outcome outcome;
+
+        private final Throwable cause;
+
+        private final long durationNanos;
+
+        private final ClientProfile profile;
+
+        private Result(String testName, Outcome outcome, Throwable cause, long durationNanos, ClientProfile profile) {
+            this.testName = testName;
+            this.outcome = outcome;
+            this.cause = cause;
+            this.durationNanos = durationNanos;
+            this.profile = profile;
+        }
+
+        public String getTestName() {
+            return testName;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Returns the reason why the test did not pass.
+         *
+         * @return the failure or the reason why the test was not possible, or null if the test passed.
+         */
+        public Throwable getCause() {
+            return cause;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Returns the resources that the client consumed while executing the test.
+         *
+         * @return the client profile, or null if the test was not profiled.
+         */
+        public ClientProfile getProfile() {
+            return profile;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(testName).append(": ").append(outcome)
+                .append(String.format(Locale.ROOT, " (%.3f ms", durationNanos / 1_000_000d));
+            if (profile != null) {
+                sb.append(", ").append(profile);
+            }
+            sb.append(')');
+            if (cause != null) {
+                sb.append(" - ").append(cause);
+            }
+            return sb.toString();
+        }
+    }
+
+    private PubSubTestMethodRunner() {
+    }
+
+    /**
+     * Returns the test methods of a class: all public, non-static methods without parameters that are annotated
+     * with {@link SmackIntegrationTest}, ordered by name.
+     *
+     * @param testClass the class that declares the tests.
+     * @return the test methods.
+     */
+    public static List<Method> getTestMethods(Class<?> testClass) {
+        final List<Method> result = new ArrayList<>();
+        for (Method method : testClass.getMethods()) {
+            if (method.isAnnotationPresent(SmackIntegrationTest.class) && method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers())) {
+                result.add(method);
+            }
+        }
+        result.sort(Comparator.comparing(Method::getName));
+        return result;
+    }
+
+    /**
+     * Creates a test instance and executes a test method on it. The time needed to create the instance is not
+     * included in the duration of the test.
+     *
+     * @param testFactory creates the instance on which the test method is invoked.
+     * @param method the test method.
+     * @return the result of the test.
+     */
+    public static Result run(Callable<?> testFactory, Method method) {
+        return run(testFactory, method, false);
+    }
+
+    /**
+     * Creates a test instance and executes a test method on it, optionally recording a {@link ClientProfile}. Only the
+     * invocation of the test method is timed and profiled: the creation of the instance is not, as it mostly consists
+     * of set-up that is shared by all tests, such as the discovery of the service and its default configuration. When
+     * the instance can not be created, the result has a duration of zero and no profile.
+     *
+     * @param testFactory creates the instance on which the test method is invoked.
+     * @param method the test method.
+     * @param profile true to record the resources that the client consumed.
+     * @return the result of the test.
+     */
+    public static Result run(Callable<?> testFactory, Method method, boolean profile) {
+        final String testName = method.getDeclaringClass().getSimpleName() + '.' + method.getName();
+        final Object test;
+        try {
+            test = testFactory.call();
+        } catch (Exception e) {
+            return new Result(testName, getOutcome(e), e, 0, null);
+        }
+        final ClientProfile.Recording recording = profile ? ClientProfile.start() : null;
+        final long start = System.nanoTime();
+        Throwable cause = null;
+        try {
+            method.invoke(test);
+        } catch (InvocationTargetException e) {
+            cause = e.getCause();
+        } catch (Exception e) {
+            cause = e;
+        }
+        final long durationNanos = System.nanoTime() - start;
+        return new Result(testName, getOutcome(cause), cause, durationNanos, recording == null ? null : recording.stop());
+    }
+
+    private static Outcome getOutcome(Throwable cause) {
+        if (cause == null) {
+            return Outcome.PASSED;
+        }
+        return cause instanceof TestNotPossibleException ? Outcome.NOT_POSSIBLE : Outcome.FAILED;
+    }
+}
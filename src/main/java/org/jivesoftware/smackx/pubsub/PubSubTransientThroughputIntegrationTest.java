@@ -0,0 +1,327 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.SmackException.NoResponseException;
+import org.jivesoftware.smack.SmackException.NotConnectedException;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.util.StringUtils;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.pubsub.form.FillableConfigureForm;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestEnvironment;
+import org.igniterealtime.smack.inttest.TestNotPossibleException;
+import org.igniterealtime.smack.inttest.annotations.SmackIntegrationTest;
+
+/**
+ * Measures the maximum sustained event rate of a transient, notification-only node, and compares it with that of a
+ * persistent node that delivers payloads.
+ *
+ * <p>Transient, notification-only nodes (<code>persist_items</code> and <code>deliver_payloads</code> both false) are
+ * used for presence-like signalling, in which events without items are published at high rates, as done by
+ * {@link LeafNode#publish()}. This benchmark publishes such events as fast as the service accepts them, with a window
+ * of requests in flight, and records the rate at which publications are acknowledged, the round-trip time of the
+ * publish requests, and the latency with which subscribers receive the notifications. It then does the same for a
+ * persistent node that delivers a payload with every notification, using the same subscribers and window, and reports
+ * the ratio between both, which is the cost of persistence on the hot path.</p>
+ *
+ * <p>As events without items can not be told apart, notifications are matched to publications by their order: the
+ * n-th notification that a subscriber receives is taken to be that of the n-th publication. This relies on the service
+ * delivering notifications in the order in which the publications were sent, which XMPP guarantees for stanzas
+ * between two entities, and on all publications succeeding. Delivery latencies are therefore only reliable when no
+ * publication failed.</p>
+ *
+ * <p>This benchmark is enabled by adding <code>transientThroughput</code> to <code>sinttest.pubsub.benchmarks</code>.
+ * It is configured with these <code>sinttest.pubsub.transientThroughput.*</code> properties:</p>
+ * <ul>
+ *     <li><code>subscribers</code> - number of subscribers to each node (default 5)</li>
+ *     <li><code>window</code> - maximum number of publish requests in flight (default 32)</li>
+ *     <li><code>payloadSize</code> - number of characters in the payload of each item of the persistent node
+ *     (default 64)</li>
+ *     <li><code>subscribeConcurrency</code> - number of concurrent subscription requests (default 32)</li>
+ *     <li><code>warmupSeconds</code> - duration of the unmeasured warm-up phase, per node (default 3)</li>
+ *     <li><code>durationSeconds</code> - duration of the measured phase, per node (default 15)</li>
+ *     <li><code>deliveryTimeoutSeconds</code> - time to wait for outstanding notifications after the last event was
+ *     published (default 30)</li>
+ *     <li><code>slo.minEventsPerSecond</code>, <code>slo.p99Millis</code> - service level objectives for the event
+ *     rate and delivery latency of the transient node, that fail the test when missed (default: not checked)</li>
+ *     <li><code>slo.maxErrors</code> - number of failed publish requests that is tolerated per node (default 0)</li>
+ * </ul>
+ */
+public class PubSubTransientThroughputIntegrationTest extends AbstractPubSubBenchmark {
+
+    public static final String BENCHMARK = "transientThroughput";
+
+    public PubSubTransientThroughputIntegrationTest(SmackIntegrationTestEnvironment environment)
+            throws TestNotPossibleException, NoResponseException, XMPPErrorException, NotConnectedException,
+            InterruptedException {
+        super(environment, BENCHMARK);
+    }
+
+    /**
+     * Publishes events to a transient notification-only node, and items to a persistent node, as fast as the service
+     * accepts them, and asserts that the configured objectives for the transient node are met.
+     *
+     * @throws InterruptedException if the calling thread was interrupted.
+     * @throws SmackException if Smack detected an exceptional situation.
+     * @throws IOException if an I/O error occurred while creating additional connections.
+     * @throws XMPPException if an XMPP protocol error was received.
+     * @throws ExecutionException if a subscription request failed.
+     */
+    @SmackIntegrationTest
+    public void transientThroughputTest() throws InterruptedException, SmackException, IOException, XMPPException, ExecutionException {
+        final int subscriberCount = getIntSetting("subscribers", 5);
+        final int window = getIntSetting("window", 32);
+        final int payloadSize = getIntSetting("payloadSize", 64);
+        final double minEventsPerSecond = getDoubleSetting("slo.minEventsPerSecond", 0);
+        final double maxP99Millis = getDoubleSetting("slo.p99Millis", 0);
+        final int maxErrors = getIntSetting("slo.maxErrors", 0);
+
+        // The first connection of the pool is the publisher. All others are subscribers.
+        final List<XMPPConnection> subscribers = getConnections(subscriberCount + 1).subList(1, subscriberCount + 1);
+
+        final FillableConfigureForm transientConfig = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+        transientConfig.setDeliverPayloads(false);
+        transientConfig.setPersistentItems(false);
+        final FillableConfigureForm persistentConfig = PubSubDefaultConfigurationCache.getFillableForm(pubSubManagerOne);
+        persistentConfig.setDeliverPayloads(true);
+        persistentConfig.setPersistentItems(true);
+        final String description = StringUtils.insecureRandomString(payloadSize);
+
+        final Run transientRun = run("transient", transientConfig, subscribers, window, () -> null);
+        final Run persistentRun = run("persistent", persistentConfig, subscribers, window,
+            () -> new PayloadItem<>(GeoLocation.builder().setDescription(description).build()));
+
+        final BenchmarkReport report = newReport()
+            .put("subscribers", subscriberCount)
+            .put("window", window)
+            .put("payloadSize", payloadSize);
+        transientRun.addTo(report);
+        persistentRun.addTo(report);
+        // Ratios above 1 (for latency) or below 1 (for the event rate) are the cost of persistence.
+        report.put("persistence.eventRateRatio", ratio(persistentRun.eventsPerSecond, transientRun.eventsPerSecond))
+            .put("persistence.publishP50Ratio", ratio(persistentRun.publish.getMillisAtPercentile(50), transientRun.publish.getMillisAtPercentile(50)))
+            .put("persistence.deliveryP50Ratio", ratio(persistentRun.delivery.getMillisAtPercentile(50), transientRun.delivery.getMillisAtPercentile(50)))
+            .put("persistence.deliveryP99Ratio", ratio(persistentRun.delivery.getMillisAtPercentile(99), transientRun.delivery.getMillisAtPercentile(99)));
+        report.publish();
+
+        for (Run run : new Run[] {transientRun, persistentRun}) {
+            assertTrue(run.errors <= maxErrors, "Publish requests to the " + run.name + " node failed: " + run.errors + " (tolerated: " + maxErrors + ")");
+        }
+        assertSlo("transient event rate (events/sec)", transientRun.eventsPerSecond, minEventsPerSecond, true);
+        assertSlo("p99 transient delivery latency (ms)", transientRun.delivery.getMillisAtPercentile(99), maxP99Millis, false);
+    }
+
+    /**
+     * Creates a node, subscribes all subscribers to it, and publishes to it as fast as possible for the configured
+     * duration.
+     */
+    private Run run(String name, FillableConfigureForm config, List<XMPPConnection> subscribers, int window, ItemFactory items)
+            throws InterruptedException, ExecutionException, NoResponseException, XMPPErrorException, NotConnectedException {
+        final int subscribeConcurrency = getIntSetting("subscribeConcurrency", 32);
+        final int warmupSeconds = getIntSetting("warmupSeconds", 3);
+        final int durationSeconds = getIntSetting("durationSeconds", 15);
+        final int deliveryTimeoutSeconds = getIntSetting("deliveryTimeoutSeconds", 30);
+
+        final String nodeId = nodename(name);
+        final Run run = new Run(name, subscribers.size());
+        final List<ScopedStanzaListener> listeners = new ArrayList<>();
+        try (PubSubNodeFixture fixture = new PubSubNodeFixture(pubSubManagerOne)) {
+            final LeafNode node = fixture.createNodes(Collections.singletonList(nodeId), config).get(0);
+
+            final ExecutorService executor = PubSubActors.newExecutor(Math.min(subscribeConcurrency, subscribers.size()));
+            try {
+                final List<Future<Subscription>> subscriptions = new ArrayList<>();
+                for (int s = 0; s < subscribers.size(); s++) {
+                    final XMPPConnection subscriber = subscribers.get(s);
+                    final AtomicLong received = run.received[s];
+                    listeners.add(ScopedStanzaListener.sync(subscriber, stanza -> run.notified(received.incrementAndGet(), System.nanoTime()),
+                        PubSubEventFilter.items(nodeId)));
+                    subscriptions.add(executor.submit(() -> getPubSubManager(subscriber).getNode(nodeId).subscribe(subscriber.getUser().asEntityBareJid())));
+                }
+                for (Future<Subscription> subscription : subscriptions) {
+                    subscription.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            final PipelinedPublisher publisher = new PipelinedPublisher(conOne, window);
+            // Mirrors the window of the publisher, so that the time of sending is not taken before a slot is free.
+            final Semaphore slots = new Semaphore(window);
+            final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+            for (long sequence = 1; ; sequence++) {
+                slots.acquire();
+                final long start = System.nanoTime();
+                if (start >= measureEnd) {
+                    slots.release();
+                    break;
+                }
+                final boolean measured = start >= measureStart;
+                if (measured) {
+                    if (run.firstMeasured == 0) {
+                        run.firstMeasured = sequence;
+                    }
+                    run.lastMeasured = sequence;
+                }
+                run.setSentNanos(sequence, start);
+                run.published = sequence;
+                publisher.publish(node, items.create()).whenComplete((ack, e) -> {
+                    slots.release();
+                    if (e != null) {
+                        if (run.errorCount.getAndIncrement() == 0) {
+                            LOGGER.log(Level.WARNING, "Publishing to " + nodeId + " failed.", e);
+                        }
+                    } else if (measured) {
+                        run.publish.recordNanos(ack.getLatencyNanos());
+                        if (ack.getAckedNanos() < measureEnd) {
+                            run.acknowledged.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            publisher.awaitAnswers(deliveryTimeoutSeconds, TimeUnit.SECONDS);
+
+            PubSubActors.awaitCondition(() -> run.getMinimumReceived() >= run.published, deliveryTimeoutSeconds, TimeUnit.SECONDS);
+            run.complete(durationSeconds);
+        } finally {
+            listeners.forEach(ScopedStanzaListener::close);
+        }
+        return run;
+    }
+
+    private static double ratio(double value, double reference) {
+        return reference == 0 ? 0 : value / reference;
+    }
+
+    /**
+     * Creates the item to publish, or null to publish an event without an item.
+     */
+    @FunctionalInterface
+    private interface ItemFactory {
+        Item create();
+    }
+
+    /**
+     * The measurements of publishing to one node.
+     */
+    private static final class Run {
+
+        private static final int CHUNK_BITS = 16;
+
+        private final String name;
+
+        private final AtomicLong[] received;
+
+        // Send times by sequence number, in chunks that are allocated as publishing proceeds.
+        private final AtomicReferenceArray<AtomicLongArray> sentNanos = new AtomicReferenceArray<>(1 << 14);
+
+        private final LatencyHistogram publish = new LatencyHistogram();
+
+        private final LatencyHistogram delivery = new LatencyHistogram();
+
+        private final AtomicLong errorCount = new AtomicLong();
+
+        // Measured publications that were also acknowledged before the end of the measured phase.
+        private final AtomicLong acknowledged = new AtomicLong();
+
+        // Written by the publishing thread only.
+        private volatile long firstMeasured;
+
+        private volatile long lastMeasured;
+
+        private volatile long published;
+
+        private long errors;
+
+        private double eventsPerSecond;
+
+        private double completeness;
+
+        private Run(String name, int subscribers) {
+            this.name = name;
+            this.received = new AtomicLong[subscribers];
+            for (int i = 0; i < subscribers; i++) {
+                received[i] = new AtomicLong();
+            }
+        }
+
+        private void setSentNanos(long sequence, long nanos) {
+            final int chunk = (int) (sequence >>> CHUNK_BITS);
+            AtomicLongArray times = sentNanos.get(chunk);
+            if (times == null) {
+                times = new AtomicLongArray(1 << CHUNK_BITS);
+                sentNanos.set(chunk, times);
+            }
+            times.set((int) (sequence & ((1 << CHUNK_BITS) - 1)), nanos);
+        }
+
+        private void notified(long sequence, long receivedNanos) {
+            final long first = firstMeasured;
+            if (first == 0 || sequence < first || sequence > lastMeasured) {
+                return;
+            }
+            final AtomicLongArray times = sentNanos.get((int) (sequence >>> CHUNK_BITS));
+            if (times != null) {
+                delivery.recordNanos(receivedNanos - times.get((int) (sequence & ((1 << CHUNK_BITS) - 1))));
+            }
+        }
+
+        private long getMinimumReceived() {
+            long result = Long.MAX_VALUE;
+            for (AtomicLong count : received) {
+                result = Math.min(result, count.get());
+            }
+            return result;
+        }
+
+        private void complete(int durationSeconds) {
+            errors = errorCount.get();
+            eventsPerSecond = (double) acknowledged.get() / durationSeconds;
+            final long expected = firstMeasured == 0 ? 0 : (lastMeasured - firstMeasured + 1) * received.length;
+            completeness = expected == 0 ? 0 : (double) delivery.getCount() / expected;
+        }
+
+        private void addTo(BenchmarkReport report) {
+            report.put(name + ".eventsPerSecond", eventsPerSecond)
+                .put(name + ".errors", errors)
+                .put(name + ".completeness", completeness)
+                .put(name + ".publish", publish)
+                .put(name + ".delivery", delivery);
+        }
+    }
+}
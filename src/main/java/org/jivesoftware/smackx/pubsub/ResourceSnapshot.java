@@ -0,0 +1,95 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The threads and heap memory in use by the JVM that executes the tests, at a particular moment.
+ *
+ * <p>Snapshots are used to determine what a test costs the load generator, for example the number of threads and the
+ * amount of heap needed per connection. To make heap usage comparable between snapshots, a garbage collection is
+ * requested before the heap is measured.</p>
+ */
+public final class ResourceSnapshot {
+
+    private final int liveThreads;
+
+    private final int peakThreads;
+
+    private final long usedHeapBytes;
+
+    private ResourceSnapshot(int liveThreads, int peakThreads, long usedHeapBytes) {
+        this.liveThreads = liveThreads;
+        this.peakThreads = peakThreads;
+        this.usedHeapBytes = usedHeapBytes;
+    }
+
+    /**
+     * Takes a snapshot of the current resource usage.
+     *
+     * @return a snapshot.
+     * @throws InterruptedException if the calling thread was interrupted while waiting for garbage collection.
+     */
+    public static ResourceSnapshot take() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        // A single request is not always honoured completely. Repeat until the heap stops shrinking.
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            final long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return new ResourceSnapshot(threads.getThreadCount(), threads.getPeakThreadCount(), used);
+    }
+
+    /**
+     * Returns the number of live platform threads. Virtual threads are not included.
+     *
+     * @return the number of live threads.
+     */
+    public int getLiveThreads() {
+        return liveThreads;
+    }
+
+    /**
+     * Returns the highest number of live platform threads since the JVM started, or since the peak was reset.
+     *
+     * @return the peak number of live threads.
+     */
+    public int getPeakThreads() {
+        return peakThreads;
+    }
+
+    public long getUsedHeapBytes() {
+        return usedHeapBytes;
+    }
+
+    /**
+     * Resets the peak thread count to the current number of live threads, so that the peak of a subsequent snapshot
+     * reflects only what happened in between.
+     */
+    public static void resetPeakThreads() {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jivesoftware.smack.StanzaListener;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.filter.StanzaFilter;
+import org.jivesoftware.smack.packet.Stanza;
+
+/**
+ * A stanza listener that is registered on a connection for a limited scope, typically a single test method.
+ *
+ * <p>Listeners that are added to a connection that is shared between tests remain registered until they are removed.
+ * Every stanza that is received afterwards is evaluated against their filters, which makes the cost of processing a
+ * stanza grow with the number of tests that were executed. Instances of this class remove their listener when they
+ * are closed, which allows them to be used in a try-with-resources statement, that ends the scope of the listener
+ * regardless of the test succeeding, failing or timing out.</p>
+ *
+ * <p>The number of listeners that are currently registered through this class is tracked per connection, and can be
+ * obtained through {@link #getLiveListenerCount(XMPPConnection)}.</p>
+ */
+public final class ScopedStanzaListener implements AutoCloseable {
+
+    private static final Map<XMPPConnection, AtomicInteger> LIVE_LISTENERS = new WeakHashMap<>();
+
+    private final XMPPConnection connection;
+
+    private final StanzaListener listener;
+
+    private final boolean synchronous;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private ScopedStanzaListener(XMPPConnection connection, StanzaListener listener, boolean synchronous) {
+        this.connection = connection;
+        this.listener = listener;
+        this.synchronous = synchronous;
+    }
+
+    /**
+     * Registers an asynchronous stanza listener, that is removed when the returned instance is closed.
+     *
+     * @param connection the connection to register the listener on.
+     * @param listener the listener.
+     * @param filter the filter that determines which stanzas are passed to the listener.
+     * @return the scope of the listener.
+     * @see XMPPConnection#addAsyncStanzaListener(StanzaListener, StanzaFilter)
+     */
+    public static ScopedStanzaListener async(XMPPConnection connection, StanzaListener listener, StanzaFilter filter) {
+        final ScopedStanzaListener result = new ScopedStanzaListener(connection, listener, false);
+        liveListenerCounter(connection).incrementAndGet();
+        connection.addAsyncStanzaListener(listener, filter);
+        return result;
+    }
+
+    /**
+     * Registers a synchronous stanza listener, that is removed when the returned instance is closed.
+     *
+     * @param connection the connection to register the listener on.
+     * @param listener the listener.
+     * @param filter the filter that determines which stanzas are passed to the listener.
+     * @return the scope of the listener.
+     * @see XMPPConnection#addSyncStanzaListener(StanzaListener, StanzaFilter)
+     */
+    public static ScopedStanzaListener sync(XMPPConnection connection, StanzaListener listener, StanzaFilter filter) {
+        final ScopedStanzaListener result = new ScopedStanzaListener(connection, listener, true);
+        liveListenerCounter(connection).incrementAndGet();
+        connection.addSyncStanzaListener(listener, filter);
+        return result;
+    }
+
+    /**
+     * Registers a listener that completes a future with the first stanza that matches the filter. The listener is
+     * removed as soon as the future is completed (by the listener, or otherwise), or when the returned instance is
+     * closed, whichever happens first.
+     *
+     * @param connection the connection to register the listener on.
+     * @param future the future to complete.
+     * @param filter the filter that determines which stanza completes the future.
+     * @return the scope of the listener.
+     */
+    public static ScopedStanzaListener completing(XMPPConnection connection, CompletableFuture<? super Stanza> future, StanzaFilter filter) {
+        final ScopedStanzaListener result = async(connection, future::complete, filter);
+        future.whenComplete((stanza, throwable) -> result.close());
+        return result;
+    }
+
+    /**
+     * Returns the number of listeners that were registered on a connection through this class, and that have not
+     * yet been removed.
+     *
+     * @param connection the connection.
+     * @return the number of live listeners.
+     */
+    public static int getLiveListenerCount(XMPPConnection connection) {
+        synchronized (LIVE_LISTENERS) {
+            final AtomicInteger counter = LIVE_LISTENERS.get(connection);
+            return counter == null ? 0 : counter.get();
+        }
+    }
+
+    /**
+     * Removes the listener from the connection. Invoking this method more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (synchronous) {
+            connection.removeSyncStanzaListener(listener);
+        } else {
+            connection.removeAsyncStanzaListener(listener);
+        }
+        liveListenerCounter(connection).decrementAndGet();
+    }
+
+    private static AtomicInteger liveListenerCounter(XMPPConnection connection) {
+        synchronized (LIVE_LISTENERS) {
+            return LIVE_LISTENERS.computeIfAbsent(connection, c -> new AtomicInteger());
+        }
+    }
+}
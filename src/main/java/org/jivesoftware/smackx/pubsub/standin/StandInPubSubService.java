@@ -0,0 +1,1041 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The PubSub service of the {@link StandInServer}, which implements the subset of XEP-0060 that is exercised by the
+ * tests and benchmarks of this project.
+ *
+ * <p>Supported are: creating (also with configuration and as instant nodes), configuring, purging and deleting leaf
+ * nodes; publishing and retracting items, on persistent and on transient nodes; retrieving items, also by ID, with a
+ * maximum, and paged by Result Set Management (XEP-0059); subscribing (also more than once), unsubscribing, and
+ * subscription options; retrieving and managing subscriptions and affiliations; and event notifications of published
+ * and retracted items, purges and deletions. Subscriptions to nodes with the 'authorize' access model remain pending
+ * until the owner approves them. As the stand-in server does not maintain rosters, no one but the owner can subscribe
+ * to nodes with the 'presence' and 'roster' access models. Collection nodes and the 'send last published item' options
+ * are not supported. Digests are not supported either: subscription options that enable them are rejected with a
+ * 'feature-not-implemented' error, rather than accepted and ignored.</p>
+ *
+ * <p>All requests are processed one at a time. Items are kept in memory only.</p>
+ */
+final class StandInPubSubService {
+
+    static final String PUBSUB_NAMESPACE = "http://jabber.org/protocol/pubsub";
+
+    static final String OWNER_NAMESPACE = PUBSUB_NAMESPACE + "#owner";
+
+    static final String EVENT_NAMESPACE = PUBSUB_NAMESPACE + "#event";
+
+    static final String ERRORS_NAMESPACE = PUBSUB_NAMESPACE + "#errors";
+
+    private static final String DISCO_INFO_NAMESPACE = "http://jabber.org/protocol/disco#info";
+
+    private static final String DISCO_ITEMS_NAMESPACE = "http://jabber.org/protocol/disco#items";
+
+    private static final String DATA_FORMS_NAMESPACE = "jabber:x:data";
+
+    private static final String RSM_NAMESPACE = "http://jabber.org/protocol/rsm";
+
+    private static final String SHIM_NAMESPACE = "http://jabber.org/protocol/shim";
+
+    private static final String NODE_CONFIG_FORM_TYPE = PUBSUB_NAMESPACE + "#node_config";
+
+    private static final String SUBSCRIBE_OPTIONS_FORM_TYPE = PUBSUB_NAMESPACE + "#subscribe_options";
+
+    private static final String SUBSCRIBE_AUTHORIZATION_FORM_TYPE = PUBSUB_NAMESPACE + "#subscribe_authorization";
+
+    private static final List<String> FEATURES = Arrays.asList("access-authorize", "access-open", "access-presence",
+        "access-roster", "access-whitelist", "config-node", "create-and-configure", "create-nodes", "delete-items",
+        "delete-nodes", "get-pending", "instant-nodes", "item-ids", "manage-subscriptions", "modify-affiliations",
+        "multi-subscribe", "outcast-affiliation", "persistent-items", "publish", "publisher-affiliation",
+        "purge-nodes", "retract-items", "retrieve-affiliations", "retrieve-default", "retrieve-default-sub",
+        "retrieve-items", "retrieve-subscriptions", "subscribe", "subscription-notifications", "subscription-options");
+
+    /**
+     * The fields of the node configuration form, with their types and default values. Values of list fields are
+     * followed by their options, separated by a '|'.
+     */
+    private static final String[][] NODE_CONFIG_FIELDS = {
+        {"pubsub#title", "text-single", ""},
+        {"pubsub#deliver_notifications", "boolean", "1"},
+        {"pubsub#deliver_payloads", "boolean", "1"},
+        {"pubsub#notify_config", "boolean", "0"},
+        {"pubsub#notify_delete", "boolean", "1"},
+        {"pubsub#notify_retract", "boolean", "1"},
+        {"pubsub#persist_items", "boolean", "1"},
+        {"pubsub#max_items", "text-single", "max"},
+        {"pubsub#subscribe", "boolean", "1"},
+        {"pubsub#access_model", "list-single", "open|open|presence|roster|authorize|whitelist"},
+        {"pubsub#roster_groups_allowed", "list-multi", ""},
+        {"pubsub#publish_model", "list-single", "publishers|publishers|subscribers|open"},
+        {"pubsub#notification_type", "list-single", "headline|normal|headline"},
+        {"pubsub#send_last_published_item", "list-single", "never|never"},
+        {"pubsub#presence_based_delivery", "boolean", "0"},
+        {"pubsub#itemreply", "list-single", "owner|owner|publisher"},
+        {"pubsub#max_payload_size", "text-single", "65536"},
+    };
+
+    private static final String[][] SUBSCRIBE_OPTIONS_FIELDS = {
+        {"pubsub#deliver", "boolean", "1"},
+        {"pubsub#digest", "boolean", "0"},
+        {"pubsub#digest_frequency", "text-single", "86400000"},
+        {"pubsub#expire", "text-single", ""},
+        {"pubsub#include_body", "boolean", "0"},
+        {"pubsub#show-values", "list-multi", "|away|chat|dnd|online|xa"},
+    };
+
+    private final StandInServer server;
+
+    private final String jid;
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    StandInPubSubService(StandInServer server, String jid) {
+        this.server = server;
+        this.jid = jid;
+    }
+
+    String getJid() {
+        return jid;
+    }
+
+    /**
+     * Processes a stanza that is addressed to this service.
+     */
+    void process(XmlElement stanza) {
+        final List<XmlElement> outgoing = new ArrayList<>();
+        synchronized (this) {
+            if (stanza.getName().equals("iq")) {
+                processIq(stanza, outgoing);
+            } else if (stanza.getName().equals("message")) {
+                processAuthorization(stanza, outgoing);
+            }
+        }
+        // Deliver outside of the lock, so that slow recipients do not hold up other requests longer than needed.
+        for (XmlElement element : outgoing) {
+            server.route(element);
+        }
+    }
+
+    private void processIq(XmlElement iq, List<XmlElement> outgoing) {
+        final String type = iq.getAttribute("type");
+        if (!"get".equals(type) && !"set".equals(type)) {
+            return;
+        }
+        final XmlElement child = iq.getFirstChild();
+        final String requester = StandInServer.bareJid(iq.getAttribute("from"));
+        // The response is sent before any notifications that are caused by the request.
+        outgoing.add(null);
+        XmlElement response;
+        try {
+            final XmlElement payload;
+            switch (child == null ? "" : child.getNamespace()) {
+            case DISCO_INFO_NAMESPACE:
+                payload = discoverInfo(child);
+                break;
+            case DISCO_ITEMS_NAMESPACE:
+                payload = discoverItems(child);
+                break;
+            case PUBSUB_NAMESPACE:
+                payload = processPubSub(child, requester, "set".equals(type), outgoing);
+                break;
+            case OWNER_NAMESPACE:
+                payload = processOwner(child, requester, "set".equals(type), outgoing);
+                break;
+            case "urn:xmpp:ping":
+                payload = null;
+                break;
+            default:
+                throw new StanzaErrorException("cancel", "service-unavailable");
+            }
+            response = StandInServer.response(iq, "result");
+            if (payload != null) {
+                response.addChild(payload);
+            }
+        } catch (StanzaErrorException e) {
+            response = e.getApplicationCondition() == null
+                ? StandInServer.error(iq, e.getType(), e.getCondition())
+                : StandInServer.error(iq, e.getType(), e.getCondition(), new XmlElement(e.getApplicationCondition(), ERRORS_NAMESPACE));
+            outgoing.subList(1, outgoing.size()).clear();
+        }
+        outgoing.set(0, response);
+    }
+
+    private XmlElement discoverInfo(XmlElement query) throws StanzaErrorException {
+        final String nodeId = query.getAttribute("node");
+        final XmlElement result = new XmlElement("query", DISCO_INFO_NAMESPACE).setAttribute("node", nodeId);
+        if (nodeId == null) {
+            result.addChild("identity").setAttribute("category", "pubsub").setAttribute("type", "service");
+            result.addChild("feature").setAttribute("var", DISCO_INFO_NAMESPACE);
+            result.addChild("feature").setAttribute("var", DISCO_ITEMS_NAMESPACE);
+            result.addChild("feature").setAttribute("var", RSM_NAMESPACE);
+            result.addChild("feature").setAttribute("var", PUBSUB_NAMESPACE);
+            for (String feature : FEATURES) {
+                result.addChild("feature").setAttribute("var", PUBSUB_NAMESPACE + '#' + feature);
+            }
+        } else {
+            getNode(nodeId);
+            result.addChild("identity").setAttribute("category", "pubsub").setAttribute("type", "leaf");
+            result.addChild("feature").setAttribute("var", PUBSUB_NAMESPACE);
+        }
+        return result;
+    }
+
+    private XmlElement discoverItems(XmlElement query) throws StanzaErrorException {
+        final String nodeId = query.getAttribute("node");
+        final XmlElement result = new XmlElement("query", DISCO_ITEMS_NAMESPACE).setAttribute("node", nodeId);
+        if (nodeId == null) {
+            for (Node node : nodes.values()) {
+                result.addChild("item").setAttribute("jid", jid).setAttribute("node", node.id);
+            }
+        } else {
+            for (StoredItem item : getNode(nodeId).items.values()) {
+                result.addChild("item").setAttribute("jid", jid).setAttribute("name", item.id);
+            }
+        }
+        return result;
+    }
+
+    private XmlElement processPubSub(XmlElement pubsub, String requester, boolean isSet, List<XmlElement> outgoing) throws StanzaErrorException {
+        for (XmlElement action : pubsub.getChildren()) {
+            switch (action.getName()) {
+            case "create":
+                return create(action, pubsub.getChild("configure"), requester);
+            case "publish":
+                return publish(action, requester, outgoing);
+            case "retract":
+                return retract(action, requester, outgoing);
+            case "subscribe":
+                return subscribe(action, pubsub.getChild("options"), requester, outgoing);
+            case "unsubscribe":
+                return unsubscribe(action, requester);
+            case "items":
+                return getItems(action, pubsub.getChild("set", RSM_NAMESPACE), requester);
+            case "subscriptions":
+                return getSubscriptions(action, requester);
+            case "affiliations":
+                return getAffiliations(action, requester);
+            case "default":
+                return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(new XmlElement("default", PUBSUB_NAMESPACE)
+                    .addChild(createForm(SUBSCRIBE_OPTIONS_FORM_TYPE, SUBSCRIBE_OPTIONS_FIELDS, defaults(SUBSCRIBE_OPTIONS_FIELDS))));
+            default:
+                break;
+            }
+        }
+        final XmlElement options = pubsub.getChild("options");
+        if (options != null) {
+            return isSet ? setSubscriptionOptions(options, requester) : getSubscriptionOptions(options, requester);
+        }
+        throw new StanzaErrorException("cancel", "feature-not-implemented");
+    }
+
+    private XmlElement processOwner(XmlElement pubsub, String requester, boolean isSet, List<XmlElement> outgoing) throws StanzaErrorException {
+        final XmlElement action = pubsub.getFirstChild();
+        if (action == null) {
+            throw new StanzaErrorException("modify", "bad-request");
+        }
+        if (action.getName().equals("default")) {
+            return new XmlElement("pubsub", OWNER_NAMESPACE).addChild(new XmlElement("default", OWNER_NAMESPACE)
+                .addChild(createForm(NODE_CONFIG_FORM_TYPE, NODE_CONFIG_FIELDS, defaults(NODE_CONFIG_FIELDS))));
+        }
+        final Node node = getNode(action.getAttribute("node"));
+        if (!node.isOwner(requester)) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        switch (action.getName()) {
+        case "configure":
+            if (!isSet) {
+                return new XmlElement("pubsub", OWNER_NAMESPACE).addChild(new XmlElement("configure", OWNER_NAMESPACE).setAttribute("node", node.id)
+                    .addChild(createForm(NODE_CONFIG_FORM_TYPE, NODE_CONFIG_FIELDS, node.config)));
+            }
+            applyConfiguration(node.config, action.getChild("x", DATA_FORMS_NAMESPACE));
+            return null;
+        case "delete":
+            nodes.remove(node.id);
+            if (node.isEnabled("pubsub#notify_delete")) {
+                notifySubscribers(node, new XmlElement("delete", EVENT_NAMESPACE).setAttribute("node", node.id), outgoing);
+            }
+            return null;
+        case "purge":
+            node.clearItems();
+            notifySubscribers(node, new XmlElement("purge", EVENT_NAMESPACE).setAttribute("node", node.id), outgoing);
+            return null;
+        case "subscriptions":
+            if (isSet) {
+                for (XmlElement change : action.getChildren("subscription")) {
+                    changeSubscription(node, change.getAttribute("jid"), change.getAttribute("subid"), change.getAttribute("subscription"), outgoing);
+                }
+                return null;
+            }
+            final XmlElement subscriptions = new XmlElement("subscriptions", OWNER_NAMESPACE).setAttribute("node", node.id);
+            for (Subscription subscription : node.subscriptions) {
+                subscriptions.addChild(subscription.toElement(OWNER_NAMESPACE, null));
+            }
+            return new XmlElement("pubsub", OWNER_NAMESPACE).addChild(subscriptions);
+        case "affiliations":
+            if (isSet) {
+                for (XmlElement change : action.getChildren("affiliation")) {
+                    final String affiliate = StandInServer.bareJid(change.getAttribute("jid"));
+                    final String affiliation = change.getAttribute("affiliation");
+                    if ("none".equals(affiliation)) {
+                        node.affiliations.remove(affiliate);
+                    } else {
+                        node.affiliations.put(affiliate, affiliation);
+                    }
+                }
+                return null;
+            }
+            final XmlElement affiliations = new XmlElement("affiliations", OWNER_NAMESPACE).setAttribute("node", node.id);
+            for (Map.Entry<String, String> affiliation : node.affiliations.entrySet()) {
+                affiliations.addChild("affiliation").setAttribute("jid", affiliation.getKey()).setAttribute("affiliation", affiliation.getValue());
+            }
+            return new XmlElement("pubsub", OWNER_NAMESPACE).addChild(affiliations);
+        default:
+            throw new StanzaErrorException("cancel", "feature-not-implemented");
+        }
+    }
+
+    private XmlElement create(XmlElement create, XmlElement configure, String requester) throws StanzaErrorException {
+        String nodeId = create.getAttribute("node");
+        if (nodeId == null) {
+            do {
+                nodeId = server.nextId();
+            } while (nodes.containsKey(nodeId));
+        } else if (nodes.containsKey(nodeId)) {
+            throw new StanzaErrorException("cancel", "conflict");
+        }
+        final Node node = new Node(nodeId, requester);
+        if (configure != null) {
+            applyConfiguration(node.config, configure.getChild("x", DATA_FORMS_NAMESPACE));
+        }
+        nodes.put(nodeId, node);
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(new XmlElement("create", PUBSUB_NAMESPACE).setAttribute("node", nodeId));
+    }
+
+    private XmlElement publish(XmlElement publish, String requester, List<XmlElement> outgoing) throws StanzaErrorException {
+        final Node node = getNode(publish.getAttribute("node"));
+        if (!node.mayPublish(requester)) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        final boolean persistent = node.isEnabled("pubsub#persist_items");
+        final boolean payloads = node.isEnabled("pubsub#deliver_payloads");
+        List<XmlElement> items = publish.getChildren("item");
+        if (items.isEmpty()) {
+            if (persistent || payloads) {
+                throw new StanzaErrorException("modify", "bad-request", "item-required");
+            }
+            // A notification without an item is sent for transient, notification-only nodes.
+            items = Collections.singletonList(new XmlElement("item", PUBSUB_NAMESPACE));
+        }
+        final List<StoredItem> published = new ArrayList<>(items.size());
+        for (XmlElement item : items) {
+            final XmlElement payload = item.getFirstChild();
+            if (payload != null && !persistent && !payloads) {
+                throw new StanzaErrorException("modify", "bad-request", "item-forbidden");
+            }
+            if (payload == null && payloads) {
+                throw new StanzaErrorException("modify", "bad-request", "payload-required");
+            }
+            final String itemId = item.getAttribute("id");
+            published.add(new StoredItem(itemId == null || itemId.isEmpty() ? server.nextId() : itemId, payload));
+        }
+
+        final XmlElement result = new XmlElement("publish", PUBSUB_NAMESPACE).setAttribute("node", node.id);
+        final XmlElement event = new XmlElement("items", EVENT_NAMESPACE).setAttribute("node", node.id);
+        for (StoredItem item : published) {
+            if (persistent) {
+                node.store(item);
+            }
+            result.addChild("item").setAttribute("id", item.id);
+            event.addChild(item.toElement(EVENT_NAMESPACE, payloads));
+        }
+        notifySubscribers(node, event, outgoing);
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(result);
+    }
+
+    private XmlElement retract(XmlElement retract, String requester, List<XmlElement> outgoing) throws StanzaErrorException {
+        final Node node = getNode(retract.getAttribute("node"));
+        if (!node.mayPublish(requester)) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        final XmlElement event = new XmlElement("items", EVENT_NAMESPACE).setAttribute("node", node.id);
+        for (XmlElement item : retract.getChildren("item")) {
+            final String itemId = item.getAttribute("id");
+            if (itemId == null) {
+                throw new StanzaErrorException("modify", "bad-request", "item-required");
+            }
+            if (node.remove(itemId) == null) {
+                throw new StanzaErrorException("cancel", "item-not-found");
+            }
+            event.addChild("retract").setAttribute("id", itemId);
+        }
+        if (event.getChildren().isEmpty()) {
+            throw new StanzaErrorException("modify", "bad-request", "item-required");
+        }
+        if (node.isEnabled("pubsub#notify_retract") || "true".equals(retract.getAttribute("notify")) || "1".equals(retract.getAttribute("notify"))) {
+            notifySubscribers(node, event, outgoing);
+        }
+        return null;
+    }
+
+    private XmlElement subscribe(XmlElement subscribe, XmlElement options, String requester, List<XmlElement> outgoing) throws StanzaErrorException {
+        final Node node = getNode(subscribe.getAttribute("node"));
+        final String subscriber = subscribe.getAttribute("jid");
+        if (subscriber == null || !StandInServer.bareJid(subscriber).equals(requester)) {
+            throw new StanzaErrorException("modify", "bad-request", "invalid-jid");
+        }
+        if ("outcast".equals(node.affiliations.get(requester))) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        final String accessModel = node.getValue("pubsub#access_model");
+        final boolean privileged = node.affiliations.containsKey(requester);
+        if (!privileged) {
+            switch (accessModel) {
+            case "presence":
+                throw new StanzaErrorException("auth", "not-authorized", "presence-subscription-required");
+            case "roster":
+                throw new StanzaErrorException("auth", "not-authorized", "not-in-roster-group");
+            case "whitelist":
+                throw new StanzaErrorException("cancel", "not-allowed", "closed-node");
+            default:
+                break;
+            }
+        }
+        final boolean requiresApproval = !privileged && "authorize".equals(accessModel);
+        if (requiresApproval) {
+            for (Subscription existing : node.getSubscriptions(subscriber)) {
+                if (existing.state.equals("pending")) {
+                    throw new StanzaErrorException("auth", "not-authorized", "pending-subscription");
+                }
+            }
+        }
+
+        final Subscription subscription = new Subscription(node.id, subscriber.toLowerCase(), server.nextId(), requiresApproval ? "pending" : "subscribed");
+        if (options != null) {
+            applySubscriptionOptions(subscription, options.getChild("x", DATA_FORMS_NAMESPACE));
+        }
+        node.subscriptions.add(subscription);
+        if (requiresApproval) {
+            outgoing.add(createAuthorizationRequest(node, subscription));
+        }
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(subscription.toElement(PUBSUB_NAMESPACE, node.id));
+    }
+
+    private XmlElement createAuthorizationRequest(Node node, Subscription subscription) {
+        final XmlElement form = new XmlElement("x", DATA_FORMS_NAMESPACE).setAttribute("type", "form");
+        form.addTextChild("title", "PubSub subscriber request");
+        addField(form, "FORM_TYPE", "hidden", SUBSCRIBE_AUTHORIZATION_FORM_TYPE);
+        addField(form, "pubsub#subid", "hidden", subscription.subId);
+        addField(form, "pubsub#node", "text-single", node.id);
+        addField(form, "pubsub#subscriber_jid", "jid-single", subscription.jid);
+        addField(form, "pubsub#allow", "boolean", "0");
+        return new XmlElement("message", StandInSession.CLIENT_NAMESPACE)
+            .setAttribute("from", jid)
+            .setAttribute("to", node.owner)
+            .setAttribute("id", server.nextId())
+            .addChild(form);
+    }
+
+    /**
+     * Processes the approval or denial of a pending subscription, which the owner of a node sends as a submitted data
+     * form in a message.
+     */
+    private void processAuthorization(XmlElement message, List<XmlElement> outgoing) {
+        final XmlElement form = message.getChild("x", DATA_FORMS_NAMESPACE);
+        if (form == null || !"submit".equals(form.getAttribute("type"))) {
+            return;
+        }
+        final Map<String, List<String>> values = new HashMap<>();
+        for (XmlElement field : form.getChildren("field")) {
+            values.put(field.getAttribute("var"), valuesOf(field));
+        }
+        if (!Collections.singletonList(SUBSCRIBE_AUTHORIZATION_FORM_TYPE).equals(values.get("FORM_TYPE"))) {
+            return;
+        }
+        final Node node = nodes.get(first(values.get("pubsub#node")));
+        if (node == null || !node.isOwner(StandInServer.bareJid(message.getAttribute("from")))) {
+            return;
+        }
+        final boolean allow = isTrue(first(values.get("pubsub#allow")));
+        changeSubscription(node, first(values.get("pubsub#subscriber_jid")), first(values.get("pubsub#subid")), allow ? "subscribed" : "none", outgoing);
+    }
+
+    /**
+     * Changes the state of the subscriptions of a JID, notifying the subscriber of the new state.
+     */
+    private void changeSubscription(Node node, String subscriber, String subId, String state, List<XmlElement> outgoing) {
+        if (subscriber == null) {
+            return;
+        }
+        final List<Subscription> subscriptions = node.getSubscriptions(subscriber);
+        if (subscriptions.isEmpty() && "subscribed".equals(state)) {
+            subscriptions.add(new Subscription(node.id, subscriber.toLowerCase(), server.nextId(), state));
+            node.subscriptions.addAll(subscriptions);
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subId != null && !subId.equals(subscription.subId)) {
+                continue;
+            }
+            if ("none".equals(state)) {
+                node.subscriptions.remove(subscription);
+            }
+            subscription.state = state;
+            outgoing.add(createNotification(subscription.jid, subscription.toElement(EVENT_NAMESPACE, node.id), null, node));
+        }
+    }
+
+    private XmlElement unsubscribe(XmlElement unsubscribe, String requester) throws StanzaErrorException {
+        final Node node = getNode(unsubscribe.getAttribute("node"));
+        final String subscriber = unsubscribe.getAttribute("jid");
+        if (subscriber == null || (!StandInServer.bareJid(subscriber).equals(requester) && !node.isOwner(requester))) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        node.subscriptions.remove(getSubscription(node, subscriber, unsubscribe.getAttribute("subid")));
+        return null;
+    }
+
+    /**
+     * Returns a subscription of a JID to a node, identified by a subscription ID when there are more than one.
+     */
+    private static Subscription getSubscription(Node node, String subscriber, String subId) throws StanzaErrorException {
+        final List<Subscription> subscriptions = node.getSubscriptions(subscriber);
+        if (subscriptions.isEmpty()) {
+            throw new StanzaErrorException("cancel", "unexpected-request", "not-subscribed");
+        }
+        if (subId == null) {
+            if (subscriptions.size() > 1) {
+                throw new StanzaErrorException("modify", "bad-request", "subid-required");
+            }
+            return subscriptions.get(0);
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.subId.equals(subId)) {
+                return subscription;
+            }
+        }
+        throw new StanzaErrorException("modify", "not-acceptable", "invalid-subid");
+    }
+
+    private XmlElement getSubscriptionOptions(XmlElement options, String requester) throws StanzaErrorException {
+        final Node node = getNode(options.getAttribute("node"));
+        final String subscriber = options.getAttribute("jid");
+        if (subscriber == null || (!StandInServer.bareJid(subscriber).equals(requester) && !node.isOwner(requester))) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        final Subscription subscription = getSubscription(node, subscriber, options.getAttribute("subid"));
+        final XmlElement result = new XmlElement("options", PUBSUB_NAMESPACE)
+            .setAttribute("node", node.id)
+            .setAttribute("jid", subscriber)
+            .setAttribute("subid", subscription.subId)
+            .addChild(createForm(SUBSCRIBE_OPTIONS_FORM_TYPE, SUBSCRIBE_OPTIONS_FIELDS, subscription.options));
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(result);
+    }
+
+    private XmlElement setSubscriptionOptions(XmlElement options, String requester) throws StanzaErrorException {
+        final Node node = getNode(options.getAttribute("node"));
+        final String subscriber = options.getAttribute("jid");
+        if (subscriber == null || (!StandInServer.bareJid(subscriber).equals(requester) && !node.isOwner(requester))) {
+            throw new StanzaErrorException("auth", "forbidden");
+        }
+        final Subscription subscription = getSubscription(node, subscriber, options.getAttribute("subid"));
+        applySubscriptionOptions(subscription, options.getChild("x", DATA_FORMS_NAMESPACE));
+        return null;
+    }
+
+    /**
+     * Applies submitted subscription options to a subscription, unless they enable digests, which are not implemented.
+     */
+    private static void applySubscriptionOptions(Subscription subscription, XmlElement form) throws StanzaErrorException {
+        final Map<String, List<String>> updated = new HashMap<>(subscription.options);
+        applyForm(updated, SUBSCRIBE_OPTIONS_FIELDS, form);
+        if (isTrue(first(updated.get("pubsub#digest")))) {
+            throw new StanzaErrorException("cancel", "feature-not-implemented");
+        }
+        subscription.options.putAll(updated);
+    }
+
+    private XmlElement getItems(XmlElement request, XmlElement set, String requester) throws StanzaErrorException {
+        final Node node = getNode(request.getAttribute("node"));
+        if (!node.affiliations.containsKey(requester)) {
+            switch (node.getValue("pubsub#access_model")) {
+            case "presence":
+                throw new StanzaErrorException("auth", "not-authorized", "presence-subscription-required");
+            case "roster":
+                throw new StanzaErrorException("auth", "not-authorized", "not-in-roster-group");
+            case "whitelist":
+                throw new StanzaErrorException("cancel", "not-allowed", "closed-node");
+            case "authorize":
+                if (!node.isSubscribed(requester)) {
+                    throw new StanzaErrorException("auth", "not-authorized", "not-subscribed");
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        final XmlElement pubsub = new XmlElement("pubsub", PUBSUB_NAMESPACE);
+        final XmlElement items = new XmlElement("items", PUBSUB_NAMESPACE).setAttribute("node", node.id);
+        pubsub.addChild(items);
+        final List<XmlElement> requested = request.getChildren("item");
+        if (!requested.isEmpty()) {
+            for (XmlElement item : requested) {
+                final StoredItem stored = node.get(item.getAttribute("id"));
+                if (stored != null) {
+                    items.addChild(stored.toElement(PUBSUB_NAMESPACE, true));
+                }
+            }
+            return pubsub;
+        }
+
+        final String maxItems = request.getAttribute("max_items");
+        if (maxItems != null) {
+            final List<StoredItem> newest = new ArrayList<>();
+            final Iterator<StoredItem> iterator = node.items.descendingMap().values().iterator();
+            for (int i = parseCount(maxItems); i > 0 && iterator.hasNext(); i--) {
+                newest.add(iterator.next());
+            }
+            Collections.reverse(newest);
+            for (StoredItem item : newest) {
+                items.addChild(item.toElement(PUBSUB_NAMESPACE, true));
+            }
+            return pubsub;
+        }
+
+        if (set == null) {
+            for (StoredItem item : node.items.values()) {
+                items.addChild(item.toElement(PUBSUB_NAMESPACE, true));
+            }
+            return pubsub;
+        }
+
+        // Result Set Management: a page of at most 'max' items, after or before a particular item.
+        final String max = set.getChildText("max");
+        final int pageSize = max == null ? Integer.MAX_VALUE : parseCount(max);
+        final String after = set.getChildText("after");
+        final String before = set.getChildText("before");
+        final List<StoredItem> page = new ArrayList<>();
+        if (before != null) {
+            final Long sequence = before.isEmpty() ? null : node.sequencesById.get(before);
+            if (!before.isEmpty() && sequence == null) {
+                throw new StanzaErrorException("cancel", "item-not-found");
+            }
+            final NavigableMap<Long, StoredItem> preceding = sequence == null ? node.items : node.items.headMap(sequence, false);
+            final Iterator<StoredItem> iterator = preceding.descendingMap().values().iterator();
+            while (page.size() < pageSize && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+            Collections.reverse(page);
+        } else {
+            final Long sequence = after == null ? null : node.sequencesById.get(after);
+            if (after != null && sequence == null) {
+                throw new StanzaErrorException("cancel", "item-not-found");
+            }
+            final Iterator<StoredItem> iterator = (sequence == null ? node.items : node.items.tailMap(sequence, false)).values().iterator();
+            while (page.size() < pageSize && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+        }
+        for (StoredItem item : page) {
+            items.addChild(item.toElement(PUBSUB_NAMESPACE, true));
+        }
+        final XmlElement resultSet = new XmlElement("set", RSM_NAMESPACE);
+        if (!page.isEmpty()) {
+            resultSet.addTextChild("first", page.get(0).id);
+            resultSet.addTextChild("last", page.get(page.size() - 1).id);
+        }
+        resultSet.addTextChild("count", Integer.toString(node.items.size()));
+        pubsub.addChild(resultSet);
+        return pubsub;
+    }
+
+    private XmlElement getSubscriptions(XmlElement request, String requester) throws StanzaErrorException {
+        final String nodeId = request.getAttribute("node");
+        final Iterable<Node> scope = nodeId == null ? nodes.values() : Collections.singletonList(getNode(nodeId));
+        final XmlElement subscriptions = new XmlElement("subscriptions", PUBSUB_NAMESPACE).setAttribute("node", nodeId);
+        for (Node node : scope) {
+            for (Subscription subscription : node.subscriptions) {
+                if (StandInServer.bareJid(subscription.jid).equals(requester)) {
+                    subscriptions.addChild(subscription.toElement(PUBSUB_NAMESPACE, node.id));
+                }
+            }
+        }
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(subscriptions);
+    }
+
+    private XmlElement getAffiliations(XmlElement request, String requester) throws StanzaErrorException {
+        final String nodeId = request.getAttribute("node");
+        final Iterable<Node> scope = nodeId == null ? nodes.values() : Collections.singletonList(getNode(nodeId));
+        final XmlElement affiliations = new XmlElement("affiliations", PUBSUB_NAMESPACE).setAttribute("node", nodeId);
+        for (Node node : scope) {
+            final String affiliation = node.affiliations.get(requester);
+            if (affiliation != null) {
+                affiliations.addChild("affiliation").setAttribute("node", node.id).setAttribute("affiliation", affiliation);
+            }
+        }
+        return new XmlElement("pubsub", PUBSUB_NAMESPACE).addChild(affiliations);
+    }
+
+    /**
+     * Sends an event to every JID that has an approved subscription to a node. A JID that has more than one
+     * subscription receives one notification, which lists the IDs of its subscriptions.
+     */
+    private void notifySubscribers(Node node, XmlElement eventChild, List<XmlElement> outgoing) {
+        if (!node.isEnabled("pubsub#deliver_notifications")) {
+            return;
+        }
+        final Map<String, List<String>> subIdsByJid = new LinkedHashMap<>();
+        for (Subscription subscription : node.subscriptions) {
+            if (subscription.state.equals("subscribed") && isTrue(first(subscription.options.get("pubsub#deliver")))) {
+                subIdsByJid.computeIfAbsent(subscription.jid, k -> new ArrayList<>()).add(subscription.subId);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : subIdsByJid.entrySet()) {
+            outgoing.add(createNotification(entry.getKey(), eventChild, entry.getValue().size() > 1 ? entry.getValue() : null, node));
+        }
+    }
+
+    private XmlElement createNotification(String to, XmlElement eventChild, List<String> subIds, Node node) {
+        final XmlElement message = new XmlElement("message", StandInSession.CLIENT_NAMESPACE)
+            .setAttribute("from", jid)
+            .setAttribute("to", to)
+            .setAttribute("type", node.getValue("pubsub#notification_type"))
+            .setAttribute("id", server.nextId());
+        message.addChild(new XmlElement("event", EVENT_NAMESPACE).addChild(eventChild));
+        if (subIds != null) {
+            final XmlElement headers = new XmlElement("headers", SHIM_NAMESPACE);
+            for (String subId : subIds) {
+                headers.addChild("header").setAttribute("name", "SubID").setText(subId);
+            }
+            message.addChild(headers);
+        }
+        return message;
+    }
+
+    private Node getNode(String nodeId) throws StanzaErrorException {
+        final Node node = nodeId == null ? null : nodes.get(nodeId);
+        if (node == null) {
+            throw new StanzaErrorException("cancel", "item-not-found");
+        }
+        return node;
+    }
+
+    private static void applyConfiguration(Map<String, List<String>> config, XmlElement form) throws StanzaErrorException {
+        final Map<String, List<String>> updated = new HashMap<>(config);
+        applyForm(updated, NODE_CONFIG_FIELDS, form);
+        final String maxItems = first(updated.get("pubsub#max_items"));
+        if (!"max".equals(maxItems)) {
+            try {
+                if (Integer.parseInt(maxItems) < 0) {
+                    throw new StanzaErrorException("modify", "not-acceptable");
+                }
+            } catch (NumberFormatException e) {
+                throw new StanzaErrorException("modify", "not-acceptable");
+            }
+        }
+        config.putAll(updated);
+    }
+
+    /**
+     * Copies the values of the known fields of a submitted form. Values of list-single fields must be one of the
+     * options of the field.
+     */
+    private static void applyForm(Map<String, List<String>> target, String[][] fields, XmlElement form) throws StanzaErrorException {
+        if (form == null) {
+            return;
+        }
+        for (XmlElement field : form.getChildren("field")) {
+            for (String[] definition : fields) {
+                if (!definition[0].equals(field.getAttribute("var"))) {
+                    continue;
+                }
+                final List<String> values = valuesOf(field);
+                if (definition[1].equals("boolean")) {
+                    values.replaceAll(value -> isTrue(value) ? "1" : "0");
+                } else if (definition[1].equals("list-single")) {
+                    if (values.size() != 1 || !optionsOf(definition).contains(values.get(0))) {
+                        throw new StanzaErrorException("modify", "not-acceptable");
+                    }
+                }
+                target.put(definition[0], values);
+            }
+        }
+    }
+
+    private static Map<String, List<String>> defaults(String[][] fields) {
+        final Map<String, List<String>> result = new HashMap<>();
+        for (String[] definition : fields) {
+            final String defaultValue = definition[2].split("\\|", -1)[0];
+            result.put(definition[0], defaultValue.isEmpty() ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(defaultValue)));
+        }
+        return result;
+    }
+
+    private static XmlElement createForm(String formType, String[][] fields, Map<String, List<String>> values) {
+        final XmlElement form = new XmlElement("x", DATA_FORMS_NAMESPACE).setAttribute("type", "form");
+        addField(form, "FORM_TYPE", "hidden", formType);
+        for (String[] definition : fields) {
+            final XmlElement field = form.addChild("field").setAttribute("var", definition[0]).setAttribute("type", definition[1]);
+            for (String value : values.getOrDefault(definition[0], Collections.emptyList())) {
+                field.addTextChild("value", value);
+            }
+            for (String option : optionsOf(definition)) {
+                field.addChild("option").addTextChild("value", option);
+            }
+        }
+        return form;
+    }
+
+    private static List<String> optionsOf(String[] fieldDefinition) {
+        final List<String> values = Arrays.asList(fieldDefinition[2].split("\\|", -1));
+        return values.subList(1, values.size());
+    }
+
+    private static void addField(XmlElement form, String var, String type, String value) {
+        form.addChild("field").setAttribute("var", var).setAttribute("type", type).addTextChild("value", value);
+    }
+
+    private static List<String> valuesOf(XmlElement field) {
+        final List<String> values = new ArrayList<>();
+        for (XmlElement value : field.getChildren("value")) {
+            values.add(value.getText());
+        }
+        return values;
+    }
+
+    private static String first(List<String> values) {
+        return values == null || values.isEmpty() ? "" : values.get(0);
+    }
+
+    private static boolean isTrue(String value) {
+        return "1".equals(value) || "true".equals(value);
+    }
+
+    private static int parseCount(String value) throws StanzaErrorException {
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new StanzaErrorException("modify", "bad-request");
+        }
+    }
+
+    private static final class Node {
+
+        private final String id;
+
+        private final String owner;
+
+        private final Map<String, List<String>> config = defaults(NODE_CONFIG_FIELDS);
+
+        /** The persisted items, by the order in which they were (last) published. */
+        private final TreeMap<Long, StoredItem> items = new TreeMap<>();
+
+        private final Map<String, Long> sequencesById = new HashMap<>();
+
+        private long nextSequence;
+
+        private final List<Subscription> subscriptions = new ArrayList<>();
+
+        /** The affiliations, other than 'none', by bare JID. */
+        private final Map<String, String> affiliations = new LinkedHashMap<>();
+
+        private Node(String id, String owner) {
+            this.id = id;
+            this.owner = owner;
+            affiliations.put(owner, "owner");
+        }
+
+        private String getValue(String var) {
+            return first(config.get(var));
+        }
+
+        private boolean isEnabled(String var) {
+            return isTrue(getValue(var));
+        }
+
+        private boolean isOwner(String bareJid) {
+            return "owner".equals(affiliations.get(bareJid));
+        }
+
+        private boolean isSubscribed(String bareJid) {
+            for (Subscription subscription : subscriptions) {
+                if (subscription.state.equals("subscribed") && StandInServer.bareJid(subscription.jid).equals(bareJid)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean mayPublish(String bareJid) {
+            final String affiliation = affiliations.get(bareJid);
+            if ("owner".equals(affiliation) || "publisher".equals(affiliation)) {
+                return true;
+            }
+            if ("outcast".equals(affiliation)) {
+                return false;
+            }
+            switch (getValue("pubsub#publish_model")) {
+            case "open":
+                return true;
+            case "subscribers":
+                return isSubscribed(bareJid);
+            default:
+                return false;
+            }
+        }
+
+        private List<Subscription> getSubscriptions(String subscriber) {
+            final List<Subscription> result = new ArrayList<>();
+            for (Subscription subscription : subscriptions) {
+                if (subscription.jid.equalsIgnoreCase(subscriber)) {
+                    result.add(subscription);
+                }
+            }
+            return result;
+        }
+
+        private StoredItem get(String itemId) {
+            final Long sequence = itemId == null ? null : sequencesById.get(itemId);
+            return sequence == null ? null : items.get(sequence);
+        }
+
+        /**
+         * Stores an item, replacing an item with the same ID, and removing the oldest items if the node holds more
+         * than the maximum number of items.
+         */
+        private void store(StoredItem item) {
+            remove(item.id);
+            final long sequence = nextSequence++;
+            items.put(sequence, item);
+            sequencesById.put(item.id, sequence);
+            final String maxItems = getValue("pubsub#max_items");
+            final int max = "max".equals(maxItems) ? Integer.MAX_VALUE : Integer.parseInt(maxItems);
+            while (items.size() > max) {
+                sequencesById.remove(items.pollFirstEntry().getValue().id);
+            }
+        }
+
+        private StoredItem remove(String itemId) {
+            final Long sequence = sequencesById.remove(itemId);
+            return sequence == null ? null : items.remove(sequence);
+        }
+
+        private void clearItems() {
+            items.clear();
+            sequencesById.clear();
+        }
+    }
+
+    private static final class StoredItem {
+
+        private final String id;
+
+        private final XmlElement payload;
+
+        private StoredItem(String id, XmlElement payload) {
+            this.id = id;
+            this.payload = payload;
+        }
+
+        private XmlElement toElement(String namespace, boolean includePayload) {
+            final XmlElement result = new XmlElement("item", namespace).setAttribute("id", id);
+            if (includePayload && payload != null) {
+                result.addChild(payload);
+            }
+            return result;
+        }
+    }
+
+    private static final class Subscription {
+
+        private final String node;
+
+        private final String jid;
+
+        private final String subId;
+
+        private String state;
+
+        private final Map<String, List<String>> options = defaults(SUBSCRIBE_OPTIONS_FIELDS);
+
+        private Subscription(String node, String jid, String subId, String state) {
+            this.node = node;
+            this.jid = jid;
+            this.subId = subId;
+            this.state = state;
+        }
+
+        /**
+         * Creates a 'subscription' element, with a 'node' attribute if a node ID is provided.
+         */
+        private XmlElement toElement(String namespace, String nodeId) {
+            return new XmlElement("subscription", namespace)
+                .setAttribute("node", nodeId != null ? node : null)
+                .setAttribute("jid", jid)
+                .setAttribute("subid", subId)
+                .setAttribute("subscription", state);
+        }
+    }
+
+    /**
+     * Signals that a request results in an error response.
+     */
+    private static final class StanzaErrorException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String type;
+
+        private final String condition;
+
+        private final String applicationCondition;
+
+        private StanzaErrorException(String type, String condition) {
+            this(type, condition, null);
+        }
+
+        private StanzaErrorException(String type, String condition, String applicationCondition) {
+            super(condition, null, false, false);
+            this.type = type;
+            this.condition = condition;
+            this.applicationCondition = applicationCondition;
+        }
+
+        private String getType() {
+            return type;
+        }
+
+        private String getCondition() {
+            return condition;
+        }
+
+        private String getApplicationCondition() {
+            return applicationCondition;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.igniterealtime.smack.inttest.SmackIntegrationTestFramework;
+
+/**
+ * A minimal XMPP server that runs in the same process as the tests, and that offers a PubSub service implementing the
+ * subset of XEP-0060 that is exercised by the tests and benchmarks of this project.
+ *
+ * <p>The stand-in server allows the tests to be executed without a network connection, for example on build machines
+ * that are isolated from the network. As there is no network, nor any server-side persistence, between the client and
+ * the service, it also provides a baseline for the client-side cost of the benchmarks, against which real servers can
+ * be compared. It is not a conformance reference for XEP-0060: it implements only what the tests in this project
+ * exercise, and it does not implement TLS, server-to-server federation, rosters or offline storage.</p>
+ *
+ * <p>The server listens on the loopback interface. It supports SASL PLAIN authentication, resource binding, in-band
+ * registration (so that the test framework can create and remove its accounts), service discovery and ping. The PubSub
+ * service is available at <code>pubsub.</code> followed by the domain of the server, and is implemented by
+ * {@link StandInPubSubService}.</p>
+ *
+ * <p>{@link #main(String[])} starts a server and then runs the test framework against it.</p>
+ */
+public final class StandInServer implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(StandInServer.class.getName());
+
+    public static final String DEFAULT_DOMAIN = "localhost";
+
+    public static final int DEFAULT_PORT = 5222;
+
+    private final String domain;
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "Stand-in XMPP server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, String> accounts = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, StandInSession>> sessionsByBareJid = new ConcurrentHashMap<>();
+
+    private final Set<StandInSession> sessions = ConcurrentHashMap.newKeySet();
+
+    private final StandInPubSubService pubSubService;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private volatile boolean closed;
+
+    private StandInServer(String domain, ServerSocket serverSocket) {
+        this.domain = domain;
+        this.serverSocket = serverSocket;
+        this.pubSubService = new StandInPubSubService(this, "pubsub." + domain);
+    }
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param domain the XMPP domain of the server.
+     * @param port the port to listen on, or 0 to use any free port.
+     * @return the running server, which must be closed by the caller.
+     * @throws BindException if the port is in use, for example by an XMPP server that runs on the same machine.
+     * @throws IOException if the server could not listen on the port.
+     */
+    public static StandInServer start(String domain, int port) throws IOException {
+        final ServerSocket serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        try {
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (BindException e) {
+            serverSocket.close();
+            final BindException failure = new BindException("Unable to listen on port " + port + " of the loopback interface, which is"
+                + " probably in use by an XMPP server that runs on this machine. Stop that server, or use another port"
+                + " (for the stand-in server started by main(), set 'sinttest.standin.port').");
+            failure.initCause(e);
+            throw failure;
+        }
+        final StandInServer server = new StandInServer(domain, serverSocket);
+        server.executor.execute(server::acceptConnections);
+        LOGGER.info("Stand-in XMPP server for '" + domain + "' is listening on " + serverSocket.getLocalSocketAddress() + ".");
+        return server;
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                final StandInSession session = new StandInSession(this, socket);
+                sessions.add(session);
+                executor.execute(session);
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Unable to accept a connection.", e);
+                }
+            }
+        }
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the address of the PubSub service of this server.
+     *
+     * @return the address of the PubSub service.
+     */
+    public String getPubSubService() {
+        return pubSubService.getJid();
+    }
+
+    /**
+     * Creates an account, or changes the password of an existing account.
+     *
+     * @param username the username of the account.
+     * @param password the password of the account.
+     */
+    public void addAccount(String username, String password) {
+        accounts.put(username.toLowerCase(), password);
+    }
+
+    /**
+     * Returns the number of sessions that have bound a resource.
+     *
+     * @return the number of bound sessions.
+     */
+    public int getSessionCount() {
+        int result = 0;
+        for (Map<String, StandInSession> resources : sessionsByBareJid.values()) {
+            result += resources.size();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unable to close the server socket.", e);
+        }
+        for (StandInSession session : sessions) {
+            session.close();
+        }
+        executor.shutdownNow();
+    }
+
+    String nextId() {
+        return Long.toString(ids.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    StandInPubSubService getPubSubServiceImplementation() {
+        return pubSubService;
+    }
+
+    boolean authenticate(String username, String password) {
+        return password != null && password.equals(accounts.get(username.toLowerCase()));
+    }
+
+    boolean register(String username, String password) {
+        return accounts.putIfAbsent(username.toLowerCase(), password) == null;
+    }
+
+    void unregister(String username) {
+        accounts.remove(username.toLowerCase());
+        final Map<String, StandInSession> resources = sessionsByBareJid.get(username.toLowerCase() + '@' + domain);
+        if (resources != null) {
+            for (StandInSession session : new ArrayList<>(resources.values())) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Registers a session under its full JID, replacing any other session that uses the same full JID.
+     */
+    void bind(StandInSession session) {
+        final StandInSession replaced = sessionsByBareJid.computeIfAbsent(session.getBareJid(), k -> new ConcurrentHashMap<>()).put(session.getResource(), session);
+        if (replaced != null && replaced != session) {
+            replaced.close();
+        }
+    }
+
+    void unbind(StandInSession session) {
+        sessions.remove(session);
+        if (session.getResource() == null) {
+            return;
+        }
+        sessionsByBareJid.computeIfPresent(session.getBareJid(), (bareJid, resources) -> {
+            resources.remove(session.getResource(), session);
+            return resources.isEmpty() ? null : resources;
+        });
+    }
+
+    /**
+     * Returns the sessions to which a stanza that is addressed to a JID is delivered: the session of a full JID, or
+     * all sessions of a bare JID.
+     */
+    private Collection<StandInSession> getSessions(String jid) {
+        final Map<String, StandInSession> resources = sessionsByBareJid.get(bareJid(jid));
+        if (resources == null) {
+            return new ArrayList<>();
+        }
+        final String resource = resource(jid);
+        if (resource == null) {
+            return resources.values();
+        }
+        final List<StandInSession> result = new ArrayList<>(1);
+        final StandInSession session = resources.get(resource);
+        if (session != null) {
+            result.add(session);
+        }
+        return result;
+    }
+
+    /**
+     * Delivers a stanza to the entity it is addressed to. Stanzas addressed to the server itself are expected to be
+     * handled by the session that received them.
+     */
+    void route(XmlElement stanza) {
+        final String to = stanza.getAttribute("to");
+        if (to == null) {
+            return;
+        }
+        if (bareJid(to).equals(pubSubService.getJid())) {
+            pubSubService.process(stanza);
+            return;
+        }
+        final boolean isRequest = stanza.getName().equals("iq") && ("get".equals(stanza.getAttribute("type")) || "set".equals(stanza.getAttribute("type")));
+        if (!domain.equals(domain(to))) {
+            if (isRequest) {
+                route(error(stanza, "cancel", "remote-server-not-found"));
+            }
+            return;
+        }
+        Collection<StandInSession> recipients = getSessions(to);
+        if (recipients.isEmpty() && stanza.getName().equals("message") && resource(to) != null) {
+            // A message to an unavailable resource is delivered to the other resources of the recipient.
+            recipients = getSessions(bareJid(to));
+        }
+        if (isRequest && (recipients.isEmpty() || resource(to) == null)) {
+            // Requests addressed to the account itself (such as vCard requests) are not supported.
+            route(error(stanza, "cancel", "service-unavailable"));
+            return;
+        }
+        for (StandInSession recipient : recipients) {
+            recipient.send(stanza);
+        }
+    }
+
+    /**
+     * Creates an error response to a request.
+     *
+     * @param request the request to respond to.
+     * @param type the error type, such as <code>cancel</code> or <code>modify</code>.
+     * @param condition the defined condition of the error.
+     * @param applicationConditions application-specific conditions to include.
+     * @return the error response.
+     */
+    static XmlElement error(XmlElement request, String type, String condition, XmlElement... applicationConditions) {
+        final XmlElement response = response(request, "error");
+        final XmlElement error = response.addChild("error").setAttribute("type", type);
+        error.addChild(new XmlElement(condition, "urn:ietf:params:xml:ns:xmpp-stanzas"));
+        for (XmlElement applicationCondition : applicationConditions) {
+            error.addChild(applicationCondition);
+        }
+        return response;
+    }
+
+    /**
+     * Creates an empty response to a request, of a particular type.
+     */
+    static XmlElement response(XmlElement request, String type) {
+        return new XmlElement(request.getName(), request.getNamespace())
+            .setAttribute("type", type)
+            .setAttribute("id", request.getAttribute("id"))
+            .setAttribute("from", request.getAttribute("to"))
+            .setAttribute("to", request.getAttribute("from"));
+    }
+
+    static String bareJid(String jid) {
+        final int slash = jid.indexOf('/');
+        return (slash < 0 ? jid : jid.substring(0, slash)).toLowerCase();
+    }
+
+    static String resource(String jid) {
+        final int slash = jid.indexOf('/');
+        return slash < 0 ? null : jid.substring(slash + 1);
+    }
+
+    static String domain(String jid) {
+        final String bareJid = bareJid(jid);
+        return bareJid.substring(bareJid.indexOf('@') + 1);
+    }
+
+    /**
+     * Starts a stand-in server, and then runs the test framework against it.
+     *
+     * <p>The domain and port of the server are read from the <code>sinttest.standin.domain</code> (default
+     * <code>localhost</code>) and <code>sinttest.standin.port</code> (default 5222) system properties. The properties
+     * that the framework needs to connect to the server (<code>sinttest.service</code>,
+     * <code>sinttest.securityMode</code> and <code>sinttest.dnsResolver</code>) are set, unless they were already
+     * provided. As the framework resolves the domain to find the server, the domain must resolve to the loopback
+     * address, and the port must be the standard XMPP client port, unless the framework is configured otherwise. When
+     * that port is already in use, typically by an XMPP server that runs on the same machine, the stand-in server does
+     * not start, rather than have the framework test the other server. The framework creates its accounts using
+     * in-band registration.</p>
+     *
+     * @param args the arguments to pass to the test framework.
+     * @throws Exception if the server could not be started, or the framework failed.
+     */
+    public static void main(String[] args) throws Exception {
+        final String domain = System.getProperty("sinttest.standin.domain", DEFAULT_DOMAIN);
+        final int port = Integer.parseInt(System.getProperty("sinttest.standin.port", Integer.toString(DEFAULT_PORT)));
+        setPropertyIfAbsent("sinttest.service", domain);
+        setPropertyIfAbsent("sinttest.securityMode", "disabled");
+        // Resolves the domain using the operating system (such as the hosts file) rather than DNS.
+        setPropertyIfAbsent("sinttest.dnsResolver", "javax");
+        try (StandInServer server = start(domain, port)) {
+            SmackIntegrationTestFramework.main(args);
+        }
+    }
+
+    private static void setPropertyIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
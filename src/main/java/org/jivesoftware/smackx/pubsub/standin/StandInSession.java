@@ -0,0 +1,346 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A client connection to the {@link StandInServer}, which negotiates the XML stream and processes the stanzas that the
+ * client sends.
+ */
+final class StandInSession implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(StandInSession.class.getName());
+
+    static final String CLIENT_NAMESPACE = "jabber:client";
+
+    private static final String STREAM_NAMESPACE = "http://etherx.jabber.org/streams";
+
+    private static final String SASL_NAMESPACE = "urn:ietf:params:xml:ns:xmpp-sasl";
+
+    private static final String BIND_NAMESPACE = "urn:ietf:params:xml:ns:xmpp-bind";
+
+    private static final String REGISTER_NAMESPACE = "jabber:iq:register";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final StandInServer server;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final Writer out;
+
+    private String username;
+
+    private volatile String resource;
+
+    private volatile boolean closed;
+
+    StandInSession(StandInServer server, Socket socket) throws IOException {
+        this.server = server;
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = new OutputStreamWriter(new BufferedOutputStream(socket.getOutputStream()), StandardCharsets.UTF_8);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    String getBareJid() {
+        return username + '@' + server.getDomain();
+    }
+
+    String getResource() {
+        return resource;
+    }
+
+    String getFullJid() {
+        return getBareJid() + '/' + resource;
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Every stream restart (after authentication) requires a new reader, as a new XML document starts.
+            boolean restart = true;
+            while (restart && !closed) {
+                final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in, "UTF-8");
+                restart = openStream(reader) && processStream(reader);
+            }
+        } catch (XMLStreamException | IOException e) {
+            if (!closed) {
+                LOGGER.log(Level.FINE, "Closing the session of " + (resource != null ? getFullJid() : "an unauthenticated client") + " after an error.", e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Waits for the client to open a stream, and responds with a stream header and the stream features.
+     *
+     * @return false if the client closed the connection instead.
+     */
+    private boolean openStream(XMLStreamReader reader) throws XMLStreamException, IOException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                if (!"stream".equals(reader.getLocalName()) || !STREAM_NAMESPACE.equals(reader.getNamespaceURI())) {
+                    throw new XMLStreamException("Expected a stream header, but received: " + reader.getLocalName());
+                }
+                final StringBuilder sb = new StringBuilder();
+                sb.append("<?xml version='1.0' encoding='UTF-8'?>")
+                    .append("<stream:stream xmlns='").append(CLIENT_NAMESPACE).append("' xmlns:stream='").append(STREAM_NAMESPACE)
+                    .append("' from='").append(server.getDomain()).append("' id='").append(server.nextId())
+                    .append("' version='1.0' xml:lang='en'>");
+                sb.append("<stream:features>");
+                if (username == null) {
+                    sb.append("<mechanisms xmlns='").append(SASL_NAMESPACE).append("'><mechanism>PLAIN</mechanism></mechanisms>");
+                    sb.append("<register xmlns='http://jabber.org/features/iq-register'/>");
+                } else {
+                    sb.append("<bind xmlns='").append(BIND_NAMESPACE).append("'/>");
+                }
+                sb.append("</stream:features>");
+                write(sb.toString());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Processes the top-level elements of a stream.
+     *
+     * @return true if the stream is to be restarted, false if it was closed.
+     */
+    private boolean processStream(XMLStreamReader reader) throws XMLStreamException, IOException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                final XmlElement element = XmlElement.read(reader);
+                if (SASL_NAMESPACE.equals(element.getNamespace())) {
+                    if (authenticate(element)) {
+                        return true;
+                    }
+                } else if (element.getName().equals("iq")) {
+                    processIq(element);
+                } else if (resource != null && (element.getName().equals("message") || element.getName().equals("presence"))) {
+                    element.setAttribute("from", getFullJid());
+                    server.route(element);
+                } else {
+                    write("<stream:error><not-authorized xmlns='urn:ietf:params:xml:ns:xmpp-streams'/></stream:error></stream:stream>");
+                    return false;
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                // The client closed the stream.
+                write("</stream:stream>");
+                return false;
+            default:
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Processes a SASL PLAIN authentication request.
+     *
+     * @return true if the client authenticated.
+     */
+    private boolean authenticate(XmlElement element) throws IOException {
+        if (element.getName().equals("auth") && username == null && "PLAIN".equals(element.getAttribute("mechanism"))) {
+            try {
+                // authzid NUL authcid NUL password
+                final String[] parts = new String(Base64.getDecoder().decode(element.getText().trim()), StandardCharsets.UTF_8).split("\u0000", -1);
+                if (parts.length == 3 && server.authenticate(parts[1], parts[2])) {
+                    username = parts[1].toLowerCase();
+                    write("<success xmlns='" + SASL_NAMESPACE + "'/>");
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.FINE, "Unable to decode an authentication request.", e);
+            }
+        }
+        write("<failure xmlns='" + SASL_NAMESPACE + "'><not-authorized/></failure>");
+        return false;
+    }
+
+    private void processIq(XmlElement iq) {
+        final XmlElement child = iq.getFirstChild();
+        final String type = iq.getAttribute("type");
+        final boolean isRequest = "get".equals(type) || "set".equals(type);
+        if (resource == null) {
+            // Before resource binding, only registration and binding itself are possible.
+            if (child != null && REGISTER_NAMESPACE.equals(child.getNamespace())) {
+                processRegistration(iq, child);
+            } else if (child != null && BIND_NAMESPACE.equals(child.getNamespace()) && username != null && "set".equals(type)) {
+                final String requested = child.getChildText("resource");
+                resource = requested == null || requested.trim().isEmpty() ? server.nextId() : requested.trim();
+                server.bind(this);
+                final XmlElement response = StandInServer.response(iq, "result");
+                response.addChild(new XmlElement("bind", BIND_NAMESPACE).addTextChild("jid", getFullJid()));
+                send(response);
+            } else if (isRequest) {
+                send(StandInServer.error(iq, "auth", "not-authorized"));
+            }
+            return;
+        }
+
+        iq.setAttribute("from", getFullJid());
+        final String to = iq.getAttribute("to");
+        // Requests addressed to the account of the client are processed by the server on behalf of the account.
+        final boolean isAddressedToAccount = to != null && to.equalsIgnoreCase(getBareJid());
+        if (to != null && !to.equalsIgnoreCase(server.getDomain()) && !isAddressedToAccount) {
+            server.route(iq);
+            return;
+        }
+        if (!isRequest) {
+            return;
+        }
+        final String namespace = child == null ? "" : child.getNamespace();
+        final XmlElement response = StandInServer.response(iq, "result");
+        switch (namespace) {
+        case "urn:ietf:params:xml:ns:xmpp-session":
+        case "urn:xmpp:ping":
+            break;
+        case "jabber:iq:roster":
+            if ("get".equals(type)) {
+                response.addChild(new XmlElement("query", namespace));
+            }
+            break;
+        case REGISTER_NAMESPACE:
+            processRegistration(iq, child);
+            return;
+        case "jabber:iq:version":
+            response.addChild(new XmlElement("query", namespace)
+                .addTextChild("name", StandInServer.class.getSimpleName())
+                .addTextChild("version", "1.0"));
+            break;
+        case "http://jabber.org/protocol/disco#info":
+            if (child.getAttribute("node") != null) {
+                send(StandInServer.error(iq, "cancel", "item-not-found"));
+                return;
+            }
+            final XmlElement info = new XmlElement("query", namespace);
+            info.addChild("identity").setAttribute("category", "server").setAttribute("type", "im").setAttribute("name", StandInServer.class.getSimpleName());
+            for (String feature : new String[] {"http://jabber.org/protocol/disco#info", "http://jabber.org/protocol/disco#items", REGISTER_NAMESPACE, "jabber:iq:version", "urn:xmpp:ping"}) {
+                info.addChild("feature").setAttribute("var", feature);
+            }
+            response.addChild(info);
+            break;
+        case "http://jabber.org/protocol/disco#items":
+            final XmlElement items = new XmlElement("query", namespace);
+            if (child.getAttribute("node") == null && !isAddressedToAccount) {
+                items.addChild("item").setAttribute("jid", server.getPubSubService());
+            }
+            response.addChild(items);
+            break;
+        default:
+            send(StandInServer.error(iq, "cancel", "service-unavailable"));
+            return;
+        }
+        send(response);
+    }
+
+    /**
+     * Processes an in-band registration request (XEP-0077), which is used to create and remove accounts. Account
+     * creation is allowed both before and after authentication.
+     */
+    private void processRegistration(XmlElement iq, XmlElement query) {
+        final XmlElement response = StandInServer.response(iq, "result");
+        if ("get".equals(iq.getAttribute("type"))) {
+            response.addChild(new XmlElement("query", REGISTER_NAMESPACE)
+                .addTextChild("instructions", "Choose a username and password.")
+                .addTextChild("username", "")
+                .addTextChild("password", ""));
+        } else if (query.getChild("remove") != null) {
+            if (username == null) {
+                send(StandInServer.error(iq, "auth", "not-authorized"));
+                return;
+            }
+            send(response);
+            server.unregister(username);
+            return;
+        } else {
+            final String newUsername = query.getChildText("username");
+            final String password = query.getChildText("password");
+            if (newUsername == null || newUsername.isEmpty() || password == null) {
+                send(StandInServer.error(iq, "modify", "not-acceptable"));
+                return;
+            }
+            if (!server.register(newUsername, password)) {
+                send(StandInServer.error(iq, "cancel", "conflict"));
+                return;
+            }
+        }
+        send(response);
+    }
+
+    /**
+     * Sends a stanza to the client of this session. This can be called from any thread.
+     */
+    void send(XmlElement stanza) {
+        final StringBuilder sb = new StringBuilder();
+        stanza.appendTo(sb, CLIENT_NAMESPACE);
+        try {
+            write(sb.toString());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unable to send a stanza to " + (resource != null ? getFullJid() : "an unauthenticated client") + ".", e);
+            close();
+        }
+    }
+
+    private synchronized void write(String xml) throws IOException {
+        out.write(xml);
+        out.flush();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        server.unbind(this);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unable to close a socket.", e);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A minimal, mutable XML element, used by the stand-in server to represent stanzas.
+ */
+final class XmlElement {
+
+    private final String name;
+
+    private final String namespace;
+
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+
+    // The namespaces of the prefixes of prefixed attributes, other than the predefined 'xml' prefix, by prefix.
+    private final Map<String, String> attributePrefixes = new LinkedHashMap<>();
+
+    private final List<XmlElement> children = new ArrayList<>();
+
+    private final StringBuilder text = new StringBuilder();
+
+    XmlElement(String name, String namespace) {
+        this.name = name;
+        this.namespace = namespace == null ? "" : namespace;
+    }
+
+    /**
+     * Reads an element, including all of its descendants, from a reader that is positioned at its start tag. When this
+     * method returns, the reader is positioned at the end tag of the element.
+     */
+    static XmlElement read(XMLStreamReader reader) throws XMLStreamException {
+        final XmlElement element = new XmlElement(reader.getLocalName(), reader.getNamespaceURI());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String prefix = reader.getAttributePrefix(i);
+            final String attributeName = prefix == null || prefix.isEmpty() ? reader.getAttributeLocalName(i) : prefix + ':' + reader.getAttributeLocalName(i);
+            element.attributes.put(attributeName, reader.getAttributeValue(i));
+            if (prefix != null && !prefix.isEmpty() && !prefix.equals("xml")) {
+                element.attributePrefixes.put(prefix, reader.getAttributeNamespace(i));
+            }
+        }
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                element.children.add(read(reader));
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+                element.text.append(reader.getText());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                return element;
+            default:
+                break;
+            }
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getNamespace() {
+        return namespace;
+    }
+
+    String getAttribute(String attributeName) {
+        return attributes.get(attributeName);
+    }
+
+    XmlElement setAttribute(String attributeName, String value) {
+        if (value == null) {
+            attributes.remove(attributeName);
+        } else {
+            attributes.put(attributeName, value);
+        }
+        return this;
+    }
+
+    List<XmlElement> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the first child element with a particular name, in any namespace.
+     */
+    XmlElement getChild(String childName) {
+        for (XmlElement child : children) {
+            if (child.name.equals(childName)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    XmlElement getChild(String childName, String childNamespace) {
+        for (XmlElement child : children) {
+            if (child.name.equals(childName) && child.namespace.equals(childNamespace)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    List<XmlElement> getChildren(String childName) {
+        final List<XmlElement> result = new ArrayList<>();
+        for (XmlElement child : children) {
+            if (child.name.equals(childName)) {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first child element, or null if this element has no children.
+     */
+    XmlElement getFirstChild() {
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    XmlElement addChild(XmlElement child) {
+        children.add(child);
+        return this;
+    }
+
+    /**
+     * Creates a child element in the namespace of this element, adds it, and returns the child.
+     */
+    XmlElement addChild(String childName) {
+        final XmlElement child = new XmlElement(childName, namespace);
+        children.add(child);
+        return child;
+    }
+
+    /**
+     * Creates a child element with text content in the namespace of this element, adds it, and returns this element.
+     */
+    XmlElement addTextChild(String childName, String childText) {
+        addChild(childName).setText(childText);
+        return this;
+    }
+
+    String getText() {
+        return text.toString();
+    }
+
+    XmlElement setText(String value) {
+        text.setLength(0);
+        if (value != null) {
+            text.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the text of the first child element with a particular name, or null if there is no such child.
+     */
+    String getChildText(String childName) {
+        final XmlElement child = getChild(childName);
+        return child == null ? null : child.getText();
+    }
+
+    /**
+     * Returns a deep copy of this element.
+     */
+    XmlElement copy() {
+        final XmlElement result = new XmlElement(name, namespace);
+        result.attributes.putAll(attributes);
+        result.attributePrefixes.putAll(attributePrefixes);
+        result.text.append(text);
+        for (XmlElement child : children) {
+            result.children.add(child.copy());
+        }
+        return result;
+    }
+
+    /**
+     * Serializes this element, declaring its namespace.
+     */
+    String toXml() {
+        final StringBuilder sb = new StringBuilder();
+        appendTo(sb, null);
+        return sb.toString();
+    }
+
+    /**
+     * Serializes this element, declaring its namespace unless it is the same as the namespace of the enclosing
+     * element. The prefixes of its prefixed attributes are declared on the element itself.
+     */
+    void appendTo(StringBuilder sb, String enclosingNamespace) {
+        sb.append('<').append(name);
+        if (!namespace.equals(enclosingNamespace)) {
+            sb.append(" xmlns='");
+            escape(sb, namespace);
+            sb.append('\'');
+        }
+        for (Map.Entry<String, String> prefix : attributePrefixes.entrySet()) {
+            sb.append(" xmlns:").append(prefix.getKey()).append("='");
+            escape(sb, prefix.getValue());
+            sb.append('\'');
+        }
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            sb.append(' ').append(attribute.getKey()).append("='");
+            escape(sb, attribute.getValue());
+            sb.append('\'');
+        }
+        if (children.isEmpty() && text.length() == 0) {
+            sb.append("/>");
+            return;
+        }
+        sb.append('>');
+        escape(sb, text);
+        for (XmlElement child : children) {
+            child.appendTo(sb, namespace);
+        }
+        sb.append("</").append(name).append('>');
+    }
+
+    static void escape(StringBuilder sb, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '\'':
+                sb.append("&apos;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toXml();
+    }
+}
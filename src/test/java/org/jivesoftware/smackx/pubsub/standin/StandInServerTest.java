@@ -0,0 +1,173 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.ConnectionConfiguration;
+import org.jivesoftware.smack.XMPPException.XMPPErrorException;
+import org.jivesoftware.smack.packet.StanzaError;
+import org.jivesoftware.smack.tcp.XMPPTCPConnection;
+import org.jivesoftware.smack.tcp.XMPPTCPConnectionConfiguration;
+import org.jivesoftware.smackx.geoloc.packet.GeoLocation;
+import org.jivesoftware.smackx.iqregister.AccountManager;
+import org.jivesoftware.smackx.pubsub.Item;
+import org.jivesoftware.smackx.pubsub.LeafNode;
+import org.jivesoftware.smackx.pubsub.PayloadItem;
+import org.jivesoftware.smackx.pubsub.PubSubManager;
+import org.jivesoftware.smackx.pubsub.Subscription;
+import org.jivesoftware.smackx.pubsub.form.FillableSubscribeForm;
+import org.jivesoftware.smackx.pubsub.listener.ItemEventListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.jxmpp.jid.DomainBareJid;
+import org.jxmpp.jid.EntityBareJid;
+import org.jxmpp.jid.impl.JidCreate;
+import org.jxmpp.jid.parts.Localpart;
+
+/**
+ * Smoke tests of the {@link StandInServer}, which connect to it over the loopback interface with Smack, the way the
+ * test framework does.
+ */
+public class StandInServerTest {
+
+    private static final String PASSWORD = "secret";
+
+    private StandInServer server;
+
+    private XMPPTCPConnection publisher;
+
+    private XMPPTCPConnection subscriber;
+
+    @Before
+    public void setUp() throws Exception {
+        server = StandInServer.start(StandInServer.DEFAULT_DOMAIN, 0);
+        register("publisher");
+        register("subscriber");
+        publisher = connect();
+        publisher.login("publisher", PASSWORD);
+        subscriber = connect();
+        subscriber.login("subscriber", PASSWORD);
+    }
+
+    @After
+    public void tearDown() {
+        for (XMPPTCPConnection connection : new XMPPTCPConnection[] {publisher, subscriber}) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void publishedItemIsNotifiedToSubscriber() throws Exception {
+        final DomainBareJid service = JidCreate.domainBareFrom(server.getPubSubService());
+        final LeafNode node = PubSubManager.getInstanceFor(publisher, service).createNode("standin-smoke");
+        final LeafNode subscription = PubSubManager.getInstanceFor(subscriber, service).getLeafNode("standin-smoke");
+
+        final CompletableFuture<Item> notified = new CompletableFuture<>();
+        final ItemEventListener<Item> listener = event -> notified.complete(event.getItems().get(0));
+        subscription.addItemEventListener(listener);
+        subscription.subscribe(subscriber.getUser().asEntityBareJid());
+        node.publish(new PayloadItem<>("item1", GeoLocation.builder().setDescription("smoke").build()));
+
+        assertEquals("item1", notified.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(1, node.getItems().size());
+        assertEquals(2, server.getSessionCount());
+    }
+
+    @Test
+    public void subscriptionOptionsThatEnableDigestsAreRejected() throws Exception {
+        final DomainBareJid service = JidCreate.domainBareFrom(server.getPubSubService());
+        PubSubManager.getInstanceFor(publisher, service).createNode("standin-digest");
+        final LeafNode node = PubSubManager.getInstanceFor(subscriber, service).getLeafNode("standin-digest");
+
+        final EntityBareJid jid = subscriber.getUser().asEntityBareJid();
+        final Subscription subscription = node.subscribe(jid);
+        final FillableSubscribeForm form = node.getSubscriptionOptions(jid.toString(), subscription.getId()).getFillableForm();
+        form.setDigestOn(true);
+        form.setDigestFrequency(1000);
+        try {
+            node.subscribe(jid, form);
+            fail("Subscribing with digests enabled should have been rejected.");
+        } catch (XMPPErrorException e) {
+            assertEquals(StanzaError.Condition.feature_not_implemented, e.getStanzaError().getCondition());
+        }
+        assertEquals(1, node.getSubscriptions().size());
+    }
+
+    @Test
+    public void subscriptionOptionsOfNonSubscribersAreNotRetrieved() throws Exception {
+        final DomainBareJid service = JidCreate.domainBareFrom(server.getPubSubService());
+        PubSubManager.getInstanceFor(publisher, service).createNode("standin-options");
+        final LeafNode node = PubSubManager.getInstanceFor(subscriber, service).getLeafNode("standin-options");
+
+        try {
+            node.getSubscriptionOptions(subscriber.getUser().asEntityBareJidString());
+            fail("Retrieving the subscription options of a non-subscriber should have been rejected.");
+        } catch (XMPPErrorException e) {
+            assertEquals(StanzaError.Condition.unexpected_request, e.getStanzaError().getCondition());
+            assertEquals("not-subscribed", e.getStanzaError().getExtension("not-subscribed", "http://jabber.org/protocol/pubsub#errors").getElementName());
+        }
+    }
+
+    @Test
+    public void portInUseIsReported() throws IOException {
+        try (StandInServer other = StandInServer.start(StandInServer.DEFAULT_DOMAIN, server.getPort())) {
+            fail("A second server should not be able to listen on port " + other.getPort() + ".");
+        } catch (BindException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(Integer.toString(server.getPort())));
+        }
+        assertNotEquals(StandInServer.DEFAULT_PORT, server.getPort());
+    }
+
+    private XMPPTCPConnection connect() throws Exception {
+        final XMPPTCPConnection connection = new XMPPTCPConnection(XMPPTCPConnectionConfiguration.builder()
+            .setXmppDomain(server.getDomain())
+            .setHostAddress(InetAddress.getLoopbackAddress())
+            .setPort(server.getPort())
+            .setSecurityMode(ConnectionConfiguration.SecurityMode.disabled)
+            .build());
+        connection.connect();
+        return connection;
+    }
+
+    private void register(String username) throws Exception {
+        final XMPPTCPConnection connection = connect();
+        try {
+            final AccountManager accountManager = AccountManager.getInstance(connection);
+            accountManager.sensitiveOperationOverInsecureConnection(true);
+            accountManager.createAccount(Localpart.from(username), PASSWORD);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
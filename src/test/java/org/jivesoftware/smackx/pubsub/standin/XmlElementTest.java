@@ -0,0 +1,62 @@
+/**
+ *
+ * Copyright 2026 Ignite Realtime Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.pubsub.standin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+
+/**
+ * Tests that {@link XmlElement} serializes what it has read to XML that reads back the same.
+ */
+public class XmlElementTest {
+
+    @Test
+    public void prefixedAttributesKeepTheirNamespace() throws XMLStreamException {
+        final XmlElement element = read("<entry xmlns='http://www.w3.org/2005/Atom' xmlns:ext='urn:example:ext' ext:rank='1' xml:lang='en'><title>A</title></entry>");
+
+        final XmlElement copy = read(element.copy().toXml());
+
+        assertEquals("1", copy.getAttribute("ext:rank"));
+        assertEquals("en", copy.getAttribute("xml:lang"));
+        assertEquals("A", copy.getChildText("title"));
+        assertEquals(element.toXml(), copy.toXml());
+    }
+
+    @Test
+    public void prefixIsDeclaredOnTheElementThatUsesIt() throws XMLStreamException {
+        final XmlElement element = read("<item xmlns='urn:example' xmlns:ext='urn:example:ext'><entry ext:rank='1'/></item>");
+
+        final XmlElement entry = read(element.getChild("entry").toXml());
+
+        assertEquals("1", entry.getAttribute("ext:rank"));
+    }
+
+    private static XmlElement read(String xml) throws XMLStreamException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        final XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(xml));
+        reader.nextTag();
+        return XmlElement.read(reader);
+    }
+}